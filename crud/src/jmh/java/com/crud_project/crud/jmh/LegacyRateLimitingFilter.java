@@ -0,0 +1,52 @@
+package com.crud_project.crud.jmh;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpStatus;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * The fixed window filter RateLimitingFilter replaced, kept as a baseline.
+ * The limit is a parameter here and the once a minute clear() is left to
+ * the benchmark
+ */
+public class LegacyRateLimitingFilter implements Filter {
+
+    private final int maxRequestsPerMin;
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+    public LegacyRateLimitingFilter(int maxRequestsPerMin) {
+        this.maxRequestsPerMin = maxRequestsPerMin;
+    }
+
+    public void clear() {
+        requestCounts.clear();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        String clientIp = httpRequest.getRemoteAddr();
+        requestCounts.putIfAbsent(clientIp, new AtomicInteger(0));
+        int currentCount = requestCounts.get(clientIp).incrementAndGet();
+
+        if (currentCount > maxRequestsPerMin) {
+            httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            httpResponse.getWriter().write("Too many requests. Please try again later.");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,57 @@
+package com.crud_project.crud.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crud_project.crud.configuration.RandomConfig;
+
+/**
+ * The RandomGenerator bean in each crud.random.mode, drawn from by 32 threads
+ * at once like concurrent wheel spins. seeded is the shared java.util.Random
+ * every spin used before, its single seed is updated with a CAS that the
+ * threads retry against each other
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class RandomBenchmark {
+
+    @Param({ RandomConfig.THREAD_LOCAL, RandomConfig.SEEDED })
+    private String mode;
+
+    private RandomGenerator random;
+
+    @Setup
+    public void setup() {
+        random = new RandomConfig().random(mode, 42);
+    }
+
+    // picking a winner from a page of participants
+    @Benchmark
+    public int nextInt() {
+        return random.nextInt(100);
+    }
+
+    // a roll for the wheel query
+    @Benchmark
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+}
@@ -0,0 +1,95 @@
+package com.crud_project.crud.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.crud_project.crud.security.RateLimitingFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * RateLimitingFilter against the fixed window filter it replaced, over a
+ * growing number of client ips. Limits are set high enough that every request
+ * is let through, so both measure their bookkeeping and not the 429 path
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    private static final int UNLIMITED = Integer.MAX_VALUE / 2;
+
+    @Param({ "1", "1000", "100000" })
+    private int clients;
+
+    private String[] clientIps;
+    private RateLimitingFilter tokenBucketFilter;
+    private LegacyRateLimitingFilter legacyFilter;
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        clientIps = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIps[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+        }
+        // headroom as stripes fill unevenly, a full stripe would evict on every miss
+        tokenBucketFilter = new RateLimitingFilter(UNLIMITED, UNLIMITED, clients * 2, new SimpleMeterRegistry());
+        legacyFilter = new LegacyRateLimitingFilter(UNLIMITED);
+    }
+
+    // the legacy filter's scheduler clears its map once a minute
+    @Setup(Level.Iteration)
+    public void clearLegacy() {
+        legacyFilter.clear();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private final MockHttpServletRequest request = new MockHttpServletRequest();
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private int next;
+
+        private MockHttpServletRequest nextRequest(String[] clientIps) {
+            next = next + 1 == clientIps.length ? 0 : next + 1;
+            request.setRemoteAddr(clientIps[next]);
+            return request;
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse tokenBucket(ThreadState state) throws IOException, ServletException {
+        tokenBucketFilter.doFilter(state.nextRequest(clientIps), state.response, chain);
+        return state.response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse legacyFixedWindow(ThreadState state) throws IOException, ServletException {
+        legacyFilter.doFilter(state.nextRequest(clientIps), state.response, chain);
+        return state.response;
+    }
+}
@@ -0,0 +1,67 @@
+package com.crud_project.crud.jmh;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.crud_project.crud.security.CustomUserDetails;
+import com.crud_project.crud.security.RateLimitingFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Per request security work, building a user's authorities on every login
+ * and the rate limiter in front of every request, for one client that stays
+ * under its limit. RateLimiterBenchmark covers many clients
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private static final Set<String> ROLES = Set.of("USER");
+    private static final int UNLIMITED = Integer.MAX_VALUE / 2;
+
+    private RateLimitingFilter rateLimitingFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    @Setup
+    public void setup() {
+        rateLimitingFilter = new RateLimitingFilter(UNLIMITED, UNLIMITED, 1000, new SimpleMeterRegistry());
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Set<CustomUserDetails.CustomGrantedAuthority> getSetOfAuthorities() {
+        return CustomUserDetails.getSetOfAuthorities(ROLES);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse rateLimitingFilterDoFilter() throws IOException, ServletException {
+        rateLimitingFilter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,57 @@
+package com.crud_project.crud.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crud_project.crud.controller.utils.StringValidation;
+
+/**
+ * Registration input validation, with valid input and input that fails late
+ * (longest regex backtracking)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringValidationBenchmark {
+
+    @Param({ "valid", "invalid" })
+    private String input;
+
+    private String username;
+    private String password;
+
+    @Setup
+    public void setup() {
+        if (input.equals("valid")) {
+            username = "EscapeFromTyping";
+            password = "StrongPass123!";
+        } else {
+            username = "a".repeat(32) + "!";
+            password = "abcdefghijklmnopqrstuvwxyz0123456789".repeat(3);
+        }
+    }
+
+    @Benchmark
+    public boolean isValidUsername() {
+        return StringValidation.isValidUsername(username);
+    }
+
+    @Benchmark
+    public boolean isValidPassword() {
+        return StringValidation.isValidPassword(password);
+    }
+}
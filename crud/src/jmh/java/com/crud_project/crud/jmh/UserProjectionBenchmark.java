@@ -0,0 +1,49 @@
+package com.crud_project.crud.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.repository.UserProjection;
+import com.crud_project.crud.repository.impl.UserProjectionImpl;
+
+/**
+ * Copying projections and entities into the cached UserProjectionImpl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserProjectionBenchmark {
+
+    private UserProjection projection;
+    private User user;
+
+    @Setup
+    public void setup() {
+        projection = new UserProjectionImpl(1, "EscapeFromTyping", 42, false);
+        user = User.builder().id(1).userName("EscapeFromTyping").hashedPassword("hash").awCrudsPerformed(42).build();
+    }
+
+    @Benchmark
+    public UserProjectionImpl fromProjection() {
+        return UserProjectionImpl.from(projection);
+    }
+
+    @Benchmark
+    public UserProjectionImpl fromUser() {
+        return UserProjectionImpl.from(user);
+    }
+}
@@ -0,0 +1,41 @@
+package com.crud_project.crud.configuration;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.cache.autoconfigure.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.crud_project.crud.service.UserTableCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Caffeine caches are configured through spring.cache.* in
+// application.properties, names must match spring.cache.cache-names
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USER_PROJECTIONS = "userProjections";
+    public static final String USER_DEAD = "userDead";
+    public static final String USER_DETAILS = "userDetails";
+    /**
+     * Rendered user tables, bounded by their size instead of their count, see
+     * UserTableCache
+     */
+    public static final String USER_TABLES = "userTables";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> userTablesCache(
+            @Value("${crud.user-table-cache.max-kilobytes:4096}") long maxKilobytes,
+            @Value("${crud.user-table-cache.expire-minutes:5}") long expireMinutes) {
+        return cacheManager -> cacheManager.registerCustomCache(USER_TABLES, Caffeine.newBuilder()
+                .maximumWeight(maxKilobytes * 1024)
+                .weigher(UserTableCache::weigh)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build());
+    }
+}
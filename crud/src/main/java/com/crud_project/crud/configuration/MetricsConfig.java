@@ -0,0 +1,33 @@
+package com.crud_project.crud.configuration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.crud_project.crud.metrics.JdbcStatementCounter;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+@Configuration
+public class MetricsConfig {
+
+    // lets StatementCountFilter count the statements of each request, around
+    // the pool so JdbcTemplate and Spring Session statements are counted too
+    @Bean
+    public static BeanPostProcessor jdbcStatementCounter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new JdbcStatementCounter())
+                        .build();
+            }
+        };
+    }
+}
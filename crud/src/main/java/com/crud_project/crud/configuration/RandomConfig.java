@@ -1,14 +1,74 @@
 package com.crud_project.crud.configuration;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RandomConfig {
+
+    public static final String THREAD_LOCAL = "thread-local";
+    public static final String SEEDED = "seeded";
+
+    /**
+     * @param mode thread-local (default), each thread draws from its own
+     *             ThreadLocalRandom so concurrent spins never contend on a
+     *             shared seed. seeded, a single java.util.Random seeded with
+     *             seed, the same sequence on every run for tests and load
+     *             replays, shared and so contended by every thread
+     * @param seed only used by seeded
+     */
     @Bean
-    public Random random() {
-        return new Random();
+    public RandomGenerator random(
+            @Value("${crud.random.mode:" + THREAD_LOCAL + "}") String mode,
+            @Value("${crud.random.seed:42}") long seed) {
+        return switch (mode) {
+            case THREAD_LOCAL -> new ThreadLocalRandomGenerator();
+            case SEEDED -> new Random(seed);
+            default -> throw new IllegalArgumentException(
+                    "crud.random.mode must be " + THREAD_LOCAL + " or " + SEEDED + ", was " + mode);
+        };
+    }
+
+    /**
+     * Looks up the calling thread's ThreadLocalRandom on every call, a
+     * ThreadLocalRandom.current() kept in a field would use the seed of
+     * whichever thread calls it without seeding it first
+     */
+    static final class ThreadLocalRandomGenerator implements RandomGenerator {
+
+        @Override
+        public long nextLong() {
+            return ThreadLocalRandom.current().nextLong();
+        }
+
+        @Override
+        public int nextInt() {
+            return ThreadLocalRandom.current().nextInt();
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            return ThreadLocalRandom.current().nextInt(bound);
+        }
+
+        @Override
+        public int nextInt(int origin, int bound) {
+            return ThreadLocalRandom.current().nextInt(origin, bound);
+        }
+
+        @Override
+        public double nextDouble() {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return ThreadLocalRandom.current().nextBoolean();
+        }
     }
 }
@@ -0,0 +1,77 @@
+package com.crud_project.crud.configuration;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.FlushMode;
+import org.springframework.session.SaveMode;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.jdbc.config.annotation.web.http.EnableJdbcHttpSession;
+
+import com.crud_project.crud.security.CompactSessionSerializer;
+import com.crud_project.crud.security.ExpiredSessionCleaner;
+import com.crud_project.crud.security.LazyTouchSessionRepository;
+
+/**
+ * crud.session.store=jdbc keeps sessions in the spring_session tables of the
+ * application database instead of the servlet container, so any instance
+ * behind a load balancer can serve any request. memory (default) leaves them
+ * to the container. Boot's JdbcSessionAutoConfiguration is excluded in
+ * application.properties so memory really is the default.
+ *
+ * Attributes are written once, when the request is done, and only those that
+ * were set. Expired sessions are deleted by ExpiredSessionCleaner instead of
+ * Spring Session's single unbounded delete
+ */
+@Configuration
+@ConditionalOnProperty(name = "crud.session.store", havingValue = SessionStoreConfig.JDBC)
+@EnableJdbcHttpSession(flushMode = FlushMode.ON_SAVE, saveMode = SaveMode.ON_SET_ATTRIBUTE,
+        cleanupCron = Scheduled.CRON_DISABLED)
+public class SessionStoreConfig {
+
+    public static final String MEMORY = "memory";
+    public static final String JDBC = "jdbc";
+
+    /**
+     * @param timeout the container's session timeout, so both stores expire
+     *                sessions alike
+     */
+    @Bean
+    public SessionRepositoryCustomizer<JdbcIndexedSessionRepository> jdbcSessionRepositoryCustomizer(
+            ApplicationContext applicationContext,
+            @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        CompactSessionSerializer serializer = new CompactSessionSerializer(applicationContext.getClassLoader());
+        return repository -> {
+            repository.setDefaultMaxInactiveInterval(timeout);
+            repository.setConversionService(serializer.conversionService());
+        };
+    }
+
+    /**
+     * The repository the session filter uses, in front of the jdbc one
+     */
+    @Bean
+    @Primary
+    public SessionRepository<Session> lazyTouchSessionRepository(
+            JdbcIndexedSessionRepository sessionRepository,
+            @Value("${crud.session.touch-interval-seconds:60}") long touchIntervalSeconds) {
+        return new LazyTouchSessionRepository<>(sessionRepository, Duration.ofSeconds(touchIntervalSeconds));
+    }
+
+    @Bean
+    public ExpiredSessionCleaner expiredSessionCleaner(
+            JdbcOperations jdbcOperations,
+            @Value("${crud.session.cleanup-chunk-size:1000}") int chunkSize) {
+        return new ExpiredSessionCleaner(jdbcOperations, chunkSize);
+    }
+}
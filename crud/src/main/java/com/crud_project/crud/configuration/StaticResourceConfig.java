@@ -0,0 +1,95 @@
+package com.crud_project.crud.configuration;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// css, js and svg are served under content hashed names (main-<md5>.css), the
+// templates' @{} links are rewritten to them by ResourceUrlEncodingFilter. A
+// changed file gets a new name, so browsers may keep those responses for good
+// and repeat visits don't request them at all. The same files under their
+// plain names (main.css) change in place, browsers revalidate them by their
+// Last-Modified on every use. The .br/.gz variants the build
+// writes next to each file are sent to clients that accept them. Security and
+// our own filters skip these paths, see isStaticResource
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    public static final String[] PATHS = { "/css/**", "/js/**", "/svg/**" };
+    private static final String[] PREFIXES = { "/css/", "/js/", "/svg/" };
+    private static final String LOCATION = "classpath:/static";
+    // an md5 before the extension, VersionResourceResolver answers 404 unless
+    // it's the file's
+    private static final Pattern FINGERPRINTED = Pattern.compile("-[0-9a-f]{32}\\.[^/]*$");
+
+    private final CacheControl fingerprintedCacheControl;
+    private final CacheControl plainCacheControl = CacheControl.noCache().cachePublic();
+
+    public StaticResourceConfig(@Value("${crud.static-resources.max-age-days:365}") long maxAgeDays) {
+        this.fingerprintedCacheControl = CacheControl.maxAge(Duration.ofDays(maxAgeDays)).cachePublic().immutable();
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String prefix : PREFIXES) {
+            // no Cache-Control of its own, so it keeps the interceptor's
+            registry.addResourceHandler(prefix + "**")
+                    .addResourceLocations(LOCATION + prefix)
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+
+    /**
+     * Only the handler knows whether the url was fingerprinted, its
+     * Cache-Control is chosen by url here instead
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                CacheControl cacheControl = FINGERPRINTED.matcher(request.getRequestURI()).find()
+                        ? fingerprintedCacheControl
+                        : plainCacheControl;
+                response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+                return true;
+            }
+        }).addPathPatterns(PATHS);
+    }
+
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    /**
+     * @param request
+     * @return true if request is for a file under PATHS
+     */
+    public static boolean isStaticResource(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.crud_project.crud.configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.crud_project.crud.service.UserEventHub;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+@Configuration
+public class UserEventsConfig {
+
+    // a few threads send to every subscriber, see UserEventHub
+    @Bean
+    public UserEventHub userEventHub(
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry,
+            @Value("${crud.events.threads:2}") int threads,
+            @Value("${crud.events.buffer-size:32}") int bufferSize,
+            @Value("${crud.events.max-clients:10000}") int maxClients,
+            @Value("${crud.events.timeout-minutes:30}") long timeoutMinutes,
+            @Value("${crud.events.heartbeat-seconds:30}") long heartbeatSeconds) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledExecutorService sender = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new UserEventHub(jsonMapper, sender, bufferSize, maxClients,
+                TimeUnit.MINUTES.toMillis(timeoutMinutes), TimeUnit.SECONDS.toMillis(heartbeatSeconds),
+                meterRegistry);
+    }
+}
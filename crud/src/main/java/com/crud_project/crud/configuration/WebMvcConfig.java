@@ -0,0 +1,25 @@
+package com.crud_project.crud.configuration;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.crud_project.crud.controller.PageStateArgumentResolver;
+
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final PageStateArgumentResolver pageStateArgumentResolver;
+
+    // PageState handler arguments come from the session or the request, see
+    // crud.page-state.mode
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(pageStateArgumentResolver);
+    }
+}
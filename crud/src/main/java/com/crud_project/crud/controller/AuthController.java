@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import com.crud_project.crud.controller.utils.StringValidation;
+import com.crud_project.crud.metrics.GameMetrics;
 import com.crud_project.crud.service.UserService;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 public class AuthController {
 
     private final UserService userService;
+    private final GameMetrics gameMetrics;
 
     /**
      * Redirects anyone who is already authenticated to the "/crud" endpoint
@@ -62,7 +64,7 @@ public class AuthController {
     public String registerPost(@RequestParam String username, @RequestParam String password) {
         if (StringValidation.isValidUsername(username)
                 && StringValidation.isValidPassword(password)
-                && (userService.registerUser(username, password) != null)) {
+                && (gameMetrics.recordRegistration(() -> userService.registerUser(username, password)) != null)) {
             return "redirect:" + "/auth" + "/login";
         }
         return "redirect:" + "/auth" + "/register" + "?error=true";
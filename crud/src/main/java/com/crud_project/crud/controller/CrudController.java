@@ -1,5 +1,8 @@
 package com.crud_project.crud.controller;
 
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -9,14 +12,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.bind.annotation.SessionAttribute;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.crud_project.crud.dvo.PageState;
 import com.crud_project.crud.dvo.WheelSpinResult;
+import com.crud_project.crud.metrics.GameMetrics;
+import com.crud_project.crud.service.SpinResultStore;
+import com.crud_project.crud.service.SpinWheelExecutor;
+import com.crud_project.crud.service.UserEventHub;
 import com.crud_project.crud.service.UserService;
+import com.crud_project.crud.service.UserTableCache;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,7 +36,21 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CrudController {
 
+    /**
+     * Redirect parameter naming why a spin failed, see crudMain.html
+     */
+    public static final String WHEEL_ERROR = "wheelError";
+    public static final String WHEEL_ERROR_NO_PAGE = "noPage";
+    public static final String WHEEL_ERROR_BUSY = "busy";
+    public static final String WHEEL_ERROR_REJECTED = "rejected";
+
     private final UserService userService;
+    private final GameMetrics gameMetrics;
+    private final SpinWheelExecutor spinWheelExecutor;
+    private final UserEventHub userEventHub;
+    private final UserTableCache userTableCache;
+    private final SpinResultStore spinResultStore;
+    private final PageStateArgumentResolver pageStateArgumentResolver;
 
     @GetMapping("/.well-known/**")
     @ResponseBody
@@ -35,11 +58,27 @@ public class CrudController {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Live user changes for the table, see UserEventHub
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<SseEmitter> getEvents() {
+        SseEmitter emitter = userEventHub.subscribe();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     @GetMapping("") // "/crud"
     public String getCrud(
             Model model,
             Authentication authentication,
-            @SessionAttribute(SessionKeys.CUR_USER_PAGE_STATE) PageState pageState) {
+            HttpServletRequest request,
+            HttpServletResponse response,
+            PageState pageState,
+            @RequestParam(required = false) String spin) {
         // if (authentication.getPrincipal() instanceof CustomUserDetails userDetails){
         // log.info("CustomUserDetails ID: " + userDetails.getId());
         // } else {
@@ -49,22 +88,33 @@ public class CrudController {
         model.addAttribute(
                 ModelKeys.CUR_USER_PROJECTION,
                 userService.getUserProjectionByName(authentication.getName()));
-        model.addAttribute(
-                ModelKeys.REQ_PAGE_PROJECTIONS,
-                userService.getUserProjectionsByPageState(pageState));
+        UserTableCache.RenderedUserTable userTable = userTableCache.get(pageState, request, response);
+        if (userTable != null) {
+            model.addAttribute(ModelKeys.REQ_PAGE_PROJECTIONS, userTable.getPage());
+            model.addAttribute(ModelKeys.REQ_PAGE_USER_TABLE, userTable.getHtml());
+        }
+        model.addAttribute(ModelKeys.REQ_PAGE_STATE, pageState);
+        // a spin redirected here by id, see spinWheelPost
+        WheelSpinResult wheelSpinResult = spin == null ? null : spinResultStore.get(authentication.getName(), spin);
+        if (wheelSpinResult != null) {
+            model.addAttribute(ModelKeys.WHEEL_WINNER, wheelSpinResult.getWinnerName());
+            model.addAttribute(ModelKeys.WHEEL_PARTICIPANTS, wheelSpinResult.getParticipants());
+        }
         return "crud";
     }
 
     // interact with and filter requests here
     @PostMapping("/create-test-users")
-    public String createTestUsersPost() {
-        userService.createTestUsers();
+    public String createTestUsersPost(
+            @RequestParam(value = "count", required = false, defaultValue = "0") int count) {
+        userService.createTestUsers(count);
         return "redirect:/crud";
     }
 
     @PostMapping("/delete-test-users")
-    public String deleteTestUsersPost() {
-        userService.deleteTestUsers();
+    public String deleteTestUsersPost(
+            @RequestParam(value = "count", required = false, defaultValue = "0") int count) {
+        userService.deleteTestUsers(count);
         return "redirect:/crud";
     }
 
@@ -100,20 +150,24 @@ public class CrudController {
     // .build()
     // .toUriString();
     // }
+    /**
+     * Sets the page state, afterId or beforeId switch to keyset paging from
+     * that user id, otherwise pageNumber is used as an offset page. In request
+     * mode it's only validated and passed on to /crud
+     */
     @PostMapping("/requestPage")
     public String requestPagePost(
             HttpSession session,
             @RequestParam(defaultValue = "0") Integer pageNumber,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
-        if (PageState.isValidPage(pageNumber)
-                && PageState.isValidSize(pageSize)) {
-            session.setAttribute(
-                    SessionKeys.CUR_USER_PAGE_STATE,
-                    PageState
-                            .builder()
-                            .page(pageNumber)
-                            .size(pageSize)
-                            .build());
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) Integer beforeId) {
+        PageState pageState = PageState.of(pageNumber, pageSize, afterId, beforeId);
+        if (pageState != null) {
+            if (pageStateArgumentResolver.getMode() == PageStateArgumentResolver.Mode.REQUEST) {
+                return "redirect:/crud" + PageStateArgumentResolver.toQuery(pageState) + "#user-table";
+            }
+            session.setAttribute(SessionKeys.CUR_USER_PAGE_STATE, pageState);
             // log.info("CUR_USER_PAGE_STATE: " +
             // session.getAttribute(SessionKeys.CUR_USER_PAGE_STATE).toString());
             return "redirect:/crud" + "#user-table";
@@ -126,24 +180,45 @@ public class CrudController {
     public String spinWheelPost(
             Authentication authentication,
             RedirectAttributes redirectAttributes,
-            @SessionAttribute(SessionKeys.CUR_USER_PAGE_STATE) PageState pageState) {
-        
+            PageState pageState,
+            @RequestParam(defaultValue = "false") boolean global) {
+        // in request mode nothing goes in the session, the result is shown by id
+        boolean requestMode = pageStateArgumentResolver.getMode() == PageStateArgumentResolver.Mode.REQUEST;
+        String query = requestMode && pageState != null
+                ? PageStateArgumentResolver.toQuery(pageState)
+                : "";
+
         if (pageState == null) {
             log.warn("PageState is null for user: {}", authentication.getName());
-            redirectAttributes.addFlashAttribute("wheelError", "Page state not found. Please request a page first.");
-            return "redirect:/crud" + "#user-wheel";
+            return wheelErrorRedirect(query, WHEEL_ERROR_NO_PAGE);
         }
         
-        WheelSpinResult wheelSpinResult = userService.spinWheel(authentication.getName(), pageState);
+        WheelSpinResult wheelSpinResult;
+        try {
+            wheelSpinResult = gameMetrics.recordSpin(authentication.getName(),
+                    () -> spinWheelExecutor.spin(authentication.getName(), pageState, global));
+        } catch (ConcurrencyFailureException e) {
+            log.warn("Wheel spin kept conflicting for user: {}", authentication.getName());
+            return wheelErrorRedirect(query, WHEEL_ERROR_BUSY);
+        }
         
         if (wheelSpinResult == null) {
             log.warn("Wheel spin result is null for user: {}", authentication.getName());
-            redirectAttributes.addFlashAttribute("wheelError", "Unable to spin wheel. Please try again.");
-            return "redirect:/crud" + "#user-wheel";
+            return wheelErrorRedirect(query, WHEEL_ERROR_REJECTED);
         }
         
+        if (requestMode) {
+            String id = spinResultStore.put(authentication.getName(), wheelSpinResult);
+            return "redirect:/crud" + query + "&spin=" + id + "#user-wheel";
+        }
         redirectAttributes.addFlashAttribute(ModelKeys.WHEEL_WINNER, wheelSpinResult.getWinnerName());
         redirectAttributes.addFlashAttribute(ModelKeys.WHEEL_PARTICIPANTS, wheelSpinResult.getParticipants());
         return "redirect:/crud" + "#user-wheel";
     }
+
+    // in the url like userTableError, so it's shown in either page state mode
+    private static String wheelErrorRedirect(String query, String error) {
+        return "redirect:/crud" + (query.isEmpty() ? "?" : query + "&") + WHEEL_ERROR + "=" + error
+                + "#request-page-form-container";
+    }
 }
@@ -0,0 +1,52 @@
+package com.crud_project.crud.controller;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.service.LeaderboardService;
+
+import lombok.RequiredArgsConstructor;
+
+@Controller
+@RequestMapping("/crud/leaderboard")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    public static final int DEFAULT_TOP = 10;
+    public static final int DEFAULT_RADIUS = 2;
+    public static final int MAX_RADIUS = 10;
+
+    private final LeaderboardService leaderboardService;
+
+    /**
+     * Shows the top users and the users ranked around the current user, all
+     * served from memory
+     */
+    @GetMapping("") // "/crud/leaderboard"
+    public String getLeaderboard(
+            Model model,
+            Authentication authentication,
+            @RequestParam(defaultValue = "" + DEFAULT_TOP) Integer top,
+            @RequestParam(defaultValue = "" + DEFAULT_RADIUS) Integer radius) {
+        if (!PageState.isValidSize(top)) {
+            top = DEFAULT_TOP;
+        }
+        if (radius < 0 || radius > MAX_RADIUS) {
+            radius = DEFAULT_RADIUS;
+        }
+        model.addAttribute(ModelKeys.LEADERBOARD_SIZE, leaderboardService.getSize());
+        model.addAttribute(ModelKeys.LEADERBOARD_TOP, leaderboardService.getTop(top));
+        model.addAttribute(
+                ModelKeys.CUR_USER_LEADERBOARD_ENTRY,
+                leaderboardService.getEntry(authentication.getName()));
+        model.addAttribute(
+                ModelKeys.LEADERBOARD_AROUND,
+                leaderboardService.getAround(authentication.getName(), radius));
+        return "leaderboard";
+    }
+}
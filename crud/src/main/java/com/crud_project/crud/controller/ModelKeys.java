@@ -10,8 +10,16 @@ public final class ModelKeys {
 
     // Request page attributes
     public static final String REQ_PAGE_PROJECTIONS = "requestPage_userProjections";
+    public static final String REQ_PAGE_USER_TABLE = "requestPage_userTable";
+    public static final String REQ_PAGE_STATE = "requestPage_pageState";
 
     // Wheel attributes (flash attributes)
     public static final String WHEEL_PARTICIPANTS = "wheel_participants";
     public static final String WHEEL_WINNER = "wheel_winner";
+
+    // Leaderboard attributes
+    public static final String LEADERBOARD_SIZE = "leaderboard_size";
+    public static final String LEADERBOARD_TOP = "leaderboard_top";
+    public static final String LEADERBOARD_AROUND = "leaderboard_around";
+    public static final String CUR_USER_LEADERBOARD_ENTRY = "currentUser_leaderboardEntry";
 }
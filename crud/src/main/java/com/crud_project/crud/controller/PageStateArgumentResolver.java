@@ -0,0 +1,105 @@
+package com.crud_project.crud.controller;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.crud_project.crud.dvo.PageState;
+
+/**
+ * Resolves PageState handler arguments from where crud.page-state.mode keeps
+ * them. session is the HttpSession attribute SessionInitFilter puts there,
+ * request is the pageNumber, pageSize, afterId and beforeId parameters of
+ * every request, so the session holds nothing but the login and any
+ * instance can serve the page
+ */
+@Component
+public class PageStateArgumentResolver implements HandlerMethodArgumentResolver {
+
+    public enum Mode {
+        SESSION,
+        REQUEST;
+
+        /**
+         * @param property session || request
+         */
+        public static Mode fromProperty(String property) {
+            return valueOf(property.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public static final String PAGE_NUMBER = "pageNumber";
+    public static final String PAGE_SIZE = "pageSize";
+    public static final String AFTER_ID = "afterId";
+    public static final String BEFORE_ID = "beforeId";
+
+    private final Mode mode;
+
+    /**
+     * @param mode session || request
+     */
+    public PageStateArgumentResolver(@Value("${crud.page-state.mode:session}") String mode) {
+        this.mode = Mode.fromProperty(mode);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == PageState.class;
+    }
+
+    /**
+     * @return PageState || null if there is none in the session, or the
+     *         parameters are invalid
+     */
+    @Override
+    public PageState resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        if (mode == Mode.SESSION) {
+            return (PageState) webRequest.getAttribute(SessionKeys.CUR_USER_PAGE_STATE,
+                    RequestAttributes.SCOPE_SESSION);
+        }
+        try {
+            return PageState.of(
+                    intParameter(webRequest, PAGE_NUMBER, PageState.MIN_PAGE),
+                    intParameter(webRequest, PAGE_SIZE, PageState.DEFAULT_PAGE),
+                    intParameter(webRequest, AFTER_ID, null),
+                    intParameter(webRequest, BEFORE_ID, null));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer intParameter(NativeWebRequest webRequest, String name, Integer defaultValue) {
+        String value = webRequest.getParameter(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.valueOf(value.trim());
+    }
+
+    /**
+     * @param pageState
+     * @return the parameters resolving back to pageState, starting with "?"
+     */
+    public static String toQuery(PageState pageState) {
+        UriComponentsBuilder query = UriComponentsBuilder.newInstance()
+                .queryParam(PAGE_SIZE, pageState.getSize());
+        if (!pageState.isKeyset()) {
+            query.queryParam(PAGE_NUMBER, pageState.getPage());
+        } else if (pageState.getDirection() == PageState.Direction.AFTER) {
+            query.queryParam(AFTER_ID, pageState.getCursor());
+        } else {
+            query.queryParam(BEFORE_ID, pageState.getCursor());
+        }
+        return query.build().toUriString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.crud_project.crud.controller;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.dvo.UserProjectionPage;
+import com.crud_project.crud.dvo.WheelSpinResult;
+import com.crud_project.crud.metrics.GameMetrics;
+import com.crud_project.crud.repository.UserProjection;
+import com.crud_project.crud.service.SpinWheelExecutor;
+import com.crud_project.crud.service.UserChangeVersion;
+import com.crud_project.crud.service.UserService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JSON API over the same users as /crud. GETs are tagged with the
+ * UserChangeVersion, a matching If-None-Match is answered 304 before any
+ * query runs
+ */
+@RestController
+@RequestMapping("/crud/api")
+@RequiredArgsConstructor
+@Slf4j
+public class UserApiController {
+
+    // clients may keep responses but must revalidate, which is what the tags
+    // make cheap. Also keeps Spring Security from sending no-store
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private final UserService userService;
+    private final UserChangeVersion userChangeVersion;
+    private final GameMetrics gameMetrics;
+    private final SpinWheelExecutor spinWheelExecutor;
+
+    /**
+     * afterId or beforeId read the keyset page from that user id, otherwise
+     * pageNumber is used as an offset page
+     */
+    @GetMapping("/users")
+    public ResponseEntity<UserProjectionPage> getUsers(
+            ServletWebRequest webRequest,
+            @RequestParam(defaultValue = "0") Integer pageNumber,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) Integer beforeId) {
+        PageState pageState = PageState.of(pageNumber, pageSize, afterId, beforeId);
+        if (pageState == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (notModified(webRequest, userChangeVersion.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok(UserProjectionPage.of(pageState.isKeyset()
+                ? userService.getUserProjectionsByKeyset(pageState)
+                : userService.getUserProjectionSliceByPageState(pageState)));
+    }
+
+    @GetMapping("/users/me")
+    public ResponseEntity<UserProjection> getCurrentUser(
+            ServletWebRequest webRequest,
+            Authentication authentication) {
+        // tagged by name too, a browser shared between logins must not reuse
+        // another user's response
+        if (notModified(webRequest, userChangeVersion.etag(authentication.getName()))) {
+            return null;
+        }
+        UserProjection userProjection = userService.getUserProjectionByName(authentication.getName());
+        if (userProjection == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(userProjection);
+    }
+
+    /**
+     * Spins the wheel over the current page, see CrudController
+     *
+     * @return the winner and participants || 400 if there is no valid page ||
+     *         409 if it kept conflicting with other spins || 422 if it
+     *         couldn't spin
+     */
+    @PostMapping("/spin")
+    public ResponseEntity<WheelSpinResult> spinWheel(
+            Authentication authentication,
+            PageState pageState,
+            @RequestParam(defaultValue = "false") boolean global) {
+        if (pageState == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        WheelSpinResult wheelSpinResult;
+        try {
+            wheelSpinResult = gameMetrics.recordSpin(authentication.getName(),
+                    () -> spinWheelExecutor.spin(authentication.getName(), pageState, global));
+        } catch (ConcurrencyFailureException e) {
+            log.warn("Wheel spin kept conflicting for user: {}", authentication.getName());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (wheelSpinResult == null) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
+        }
+        return ResponseEntity.ok(wheelSpinResult);
+    }
+
+    /**
+     * Sets the ETag and cache headers, answering 304 if the client has it
+     *
+     * @return true if the response is done and nothing should be read
+     */
+    private static boolean notModified(ServletWebRequest webRequest, String etag) {
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return webRequest.checkNotModified(etag);
+    }
+}
@@ -0,0 +1,30 @@
+package com.crud_project.crud.dvo;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * Slice read by id cursor instead of offset, knows if there is a previous
+ * page without needing a page number
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    private final boolean hasPrevious;
+
+    public KeysetSlice(List<T> content, int size, boolean hasNext, boolean hasPrevious) {
+        super(content, Pageable.ofSize(size), hasNext);
+        this.hasPrevious = hasPrevious;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    @Override
+    public boolean isFirst() {
+        return !hasPrevious;
+    }
+}
@@ -0,0 +1,21 @@
+package com.crud_project.crud.dvo;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class LeaderboardEntry {
+
+    /**
+     * 1 is the user with the most aw cruds performed
+     */
+    private final int rank;
+    private final String userName;
+    private final int awCrudsPerformed;
+    private final boolean dead;
+}
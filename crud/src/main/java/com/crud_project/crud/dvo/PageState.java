@@ -1,5 +1,7 @@
 package com.crud_project.crud.dvo;
 
+import java.io.Serializable;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Builder.Default;
@@ -10,17 +12,41 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class PageState {
+public class PageState implements Serializable {
+
+    // kept in sessions, which may be stored and read by other instances
+    private static final long serialVersionUID = 1L;
 
     public static final int DEFAULT_PAGE = 10;
     public static final int MIN_SIZE = 1;
     public static final int MAX_SIZE = 100;
     public static final int MIN_PAGE = 0;
+    public static final int MIN_CURSOR = 0;
+
+    /**
+     * Which side of the cursor a keyset page is read from
+     */
+    public enum Direction {
+        AFTER,
+        BEFORE
+    }
 
     @Default
     private final int page = MIN_PAGE;
     @Default
     private final int size = DEFAULT_PAGE;
+    /**
+     * User id the keyset page starts after or ends before, null when offset
+     * paging
+     */
+    @Default
+    private final Integer cursor = null;
+    @Default
+    private final Direction direction = Direction.AFTER;
+
+    public boolean isKeyset() {
+        return cursor != null;
+    }
 
     public static boolean isValidPage(int page) {
         return page >= MIN_PAGE;
@@ -29,4 +55,32 @@ public class PageState {
     public static boolean isValidSize(int size) {
         return (size >= MIN_SIZE && size <= MAX_SIZE);
     }
+
+    public static boolean isValidCursor(int cursor) {
+        return cursor >= MIN_CURSOR;
+    }
+
+    /**
+     * afterId or beforeId make a keyset page from that user id, otherwise page
+     * is used as an offset page
+     *
+     * @param page
+     * @param size
+     * @param afterId  || null
+     * @param beforeId || null, ignored if afterId is set
+     * @return PageState || null if any of them is invalid
+     */
+    public static PageState of(int page, int size, Integer afterId, Integer beforeId) {
+        Integer cursor = afterId != null ? afterId : beforeId;
+        if (!isValidPage(page) || !isValidSize(size) || (cursor != null && !isValidCursor(cursor))) {
+            return null;
+        }
+        return PageState
+                .builder()
+                .page(page)
+                .size(size)
+                .cursor(cursor)
+                .direction(afterId != null ? Direction.AFTER : Direction.BEFORE)
+                .build();
+    }
 }
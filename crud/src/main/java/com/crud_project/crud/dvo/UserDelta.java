@@ -0,0 +1,50 @@
+package com.crud_project.crud.dvo;
+
+import java.util.List;
+
+import com.crud_project.crud.event.UserChangedEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A UserChangedEvent as sent to /crud/events subscribers, unknown fields are
+ * left out of the JSON
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserDelta {
+
+    public static final String ADDED = "added";
+    public static final String UPDATED = "updated";
+    public static final String REMOVED = "removed";
+    /**
+     * Too many users changed to send one by one, clients should reload
+     */
+    public static final String RELOAD = "reload";
+
+    private final String type;
+    private final Integer id;
+    private final String userName;
+    private final Integer awCrudsPerformed;
+    private final Boolean dead;
+    private final List<String> userNames;
+
+    public static UserDelta of(UserChangedEvent event) {
+        return switch (event.getType()) {
+            case ADDED -> new UserDelta(ADDED, event.getId(), event.getUserName(), event.getAwCrudsPerformed(),
+                    event.isDead(), null);
+            case UPDATED -> new UserDelta(UPDATED, event.getId(), event.getUserName(), event.getAwCrudsPerformed(),
+                    event.isDead(), null);
+            case REMOVED -> new UserDelta(REMOVED, event.getId(), event.getUserName(), null, null,
+                    event.getUserNames());
+            case BULK_CHANGED -> new UserDelta(RELOAD, null, null, null, null, null);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.crud_project.crud.dvo;
+
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+
+import com.crud_project.crud.repository.UserProjection;
+import com.crud_project.crud.repository.impl.UserProjectionImpl;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A page of users as served by the JSON API, the next and previous keyset
+ * pages start after the last id and end before the first
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class UserProjectionPage {
+
+    private final List<UserProjectionImpl> content;
+    private final int size;
+    private final boolean hasNext;
+    private final boolean hasPrevious;
+
+    /**
+     * @param slice
+     * @return UserProjectionPage || null
+     */
+    public static UserProjectionPage of(Slice<UserProjection> slice) {
+        if (slice == null) {
+            return null;
+        }
+        return new UserProjectionPage(slice.getContent().stream().map(UserProjectionImpl::from).toList(),
+                slice.getSize(), slice.hasNext(), slice.hasPrevious());
+    }
+}
@@ -1,5 +1,6 @@
 package com.crud_project.crud.dvo;
 
+import java.io.Serializable;
 import java.util.List;
 
 import lombok.AllArgsConstructor;
@@ -7,7 +8,10 @@ import lombok.Getter;
 
 @Getter
 @AllArgsConstructor
-public class WheelSpinResult {
+public class WheelSpinResult implements Serializable {
+
+    // a flash attribute, kept in the session until the redirect is shown
+    private static final long serialVersionUID = 1L;
 
     private final String winnerName;
     private final List<String> participants;
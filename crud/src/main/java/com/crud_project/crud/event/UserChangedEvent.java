@@ -0,0 +1,86 @@
+package com.crud_project.crud.event;
+
+import java.util.List;
+
+import com.crud_project.crud.entity.User;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by UserService whenever a user is added, changed or removed.
+ * Listeners should use TransactionalEventListener so rolled back changes are
+ * never seen
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        REMOVED,
+        /**
+         * Too many users changed to describe one by one, reload everything
+         */
+        BULK_CHANGED
+    }
+
+    private final Type type;
+    /**
+     * May be null when only the name is known
+     */
+    private final Integer id;
+    /**
+     * May be null when only the id is known
+     */
+    private final String userName;
+    private final int awCrudsPerformed;
+    private final boolean dead;
+    /**
+     * True when the user's password may have changed, a saved entity could
+     * have any field changed
+     */
+    private final boolean credentialsChanged;
+    /**
+     * Every user a REMOVED of more than one removed, null otherwise
+     */
+    private final List<String> userNames;
+
+    public static UserChangedEvent added(User user) {
+        return new UserChangedEvent(Type.ADDED, user.getId(), user.getUserName(), user.getAwCrudsPerformed(),
+                user.isDead(), false, null);
+    }
+
+    /**
+     * A saved user entity, see credentialsChanged
+     */
+    public static UserChangedEvent updated(User user) {
+        return new UserChangedEvent(Type.UPDATED, user.getId(), user.getUserName(), user.getAwCrudsPerformed(),
+                user.isDead(), true, null);
+    }
+
+    /**
+     * Game state change only, the password is untouched
+     */
+    public static UserChangedEvent updated(String userName, int awCrudsPerformed, boolean dead) {
+        return new UserChangedEvent(Type.UPDATED, null, userName, awCrudsPerformed, dead, false, null);
+    }
+
+    public static UserChangedEvent removed(int id, String userName) {
+        return new UserChangedEvent(Type.REMOVED, id, userName, 0, false, true, null);
+    }
+
+    /**
+     * Users removed by name, some may not have existed
+     */
+    public static UserChangedEvent removed(List<String> userNames) {
+        return new UserChangedEvent(Type.REMOVED, null, null, 0, false, true, List.copyOf(userNames));
+    }
+
+    public static UserChangedEvent bulkChanged() {
+        return new UserChangedEvent(Type.BULK_CHANGED, null, null, 0, false, true, null);
+    }
+}
@@ -0,0 +1,104 @@
+package com.crud_project.crud.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import com.crud_project.crud.dvo.WheelSpinResult;
+import com.crud_project.crud.entity.User;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers for the game's hot paths, tagged by how they ended. They wrap the
+ * transactional service calls from outside, so failures raised on commit
+ * are counted too
+ */
+@Component
+public class GameMetrics {
+
+    public enum SpinOutcome {
+        // the spinner landed on themselves
+        SELF_KILL,
+        OTHER_KILL,
+        // spinner is dead or doesn't exist
+        REJECTED,
+        // lost a race with a concurrent spin
+        LOCK_FAILURE
+    }
+
+    public enum RegistrationOutcome {
+        CREATED,
+        // name taken or the password couldn't be hashed
+        REJECTED
+    }
+
+    private final Map<SpinOutcome, Timer> spinTimers = new EnumMap<>(SpinOutcome.class);
+    private final Map<RegistrationOutcome, Timer> registrationTimers = new EnumMap<>(RegistrationOutcome.class);
+    private final MeterRegistry meterRegistry;
+
+    public GameMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (SpinOutcome outcome : SpinOutcome.values()) {
+            spinTimers.put(outcome, Timer.builder("wheel.spin")
+                    .description("Wheel spins by outcome")
+                    .tag("outcome", tagValue(outcome))
+                    .register(meterRegistry));
+        }
+        for (RegistrationOutcome outcome : RegistrationOutcome.values()) {
+            registrationTimers.put(outcome, Timer.builder("user.registration")
+                    .description("User registrations by outcome, including password hashing")
+                    .tag("outcome", tagValue(outcome))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Times a spin by userName
+     *
+     * @param userName
+     * @param spin
+     * @return the spin's result, exceptions are rethrown
+     */
+    public WheelSpinResult recordSpin(String userName, Supplier<WheelSpinResult> spin) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        WheelSpinResult result;
+        try {
+            result = spin.get();
+        } catch (ConcurrencyFailureException e) {
+            sample.stop(spinTimers.get(SpinOutcome.LOCK_FAILURE));
+            throw e;
+        }
+
+        SpinOutcome outcome;
+        if (result == null) {
+            outcome = SpinOutcome.REJECTED;
+        } else if (result.getWinnerName().equals(userName)) {
+            outcome = SpinOutcome.SELF_KILL;
+        } else {
+            outcome = SpinOutcome.OTHER_KILL;
+        }
+        sample.stop(spinTimers.get(outcome));
+        return result;
+    }
+
+    /**
+     * @param registration
+     * @return the registered User || null
+     */
+    public User recordRegistration(Supplier<User> registration) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        User user = registration.get();
+        sample.stop(registrationTimers.get(user != null ? RegistrationOutcome.CREATED : RegistrationOutcome.REJECTED));
+        return user;
+    }
+
+    private static String tagValue(Enum<?> outcome) {
+        return outcome.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,56 @@
+package com.crud_project.crud.metrics;
+
+import java.util.List;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Counts the statements run on the current thread between begin and end
+ * through the DataSource it listens to, whoever runs them: Hibernate,
+ * JdbcTemplate or Spring Session. A batch counts once however many rows it
+ * carries
+ */
+public class JdbcStatementCounter implements QueryExecutionListener {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    /**
+     * Starts counting on this thread from 0
+     */
+    public static void begin() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * @return statements since begin on this thread || 0 if not counting
+     */
+    public static int current() {
+        int[] count = COUNT.get();
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * Stops counting on this thread
+     *
+     * @return statements since begin || 0 if not counting
+     */
+    public static int end() {
+        int count = current();
+        COUNT.remove();
+        return count;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+}
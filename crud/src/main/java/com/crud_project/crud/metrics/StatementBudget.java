@@ -0,0 +1,84 @@
+package com.crud_project.crud.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Max JDBC statements a request to each endpoint may run, to catch N+1
+ * queries. Over budget requests are logged, or fail with
+ * StatementBudgetExceededException when crud.statement-budget.fail is set
+ */
+@Component
+@Slf4j
+public class StatementBudget {
+
+    private final int defaultBudget;
+    private final Map<String, Integer> endpointBudgets;
+    private final boolean fail;
+
+    /**
+     * @param defaultBudget   budget of endpoints without their own, 0 or less
+     *                        means unlimited
+     * @param endpointBudgets comma separated "METHOD /uri/pattern=budget"
+     *                        pairs, e.g. "GET /crud=10,POST /auth/login=3"
+     * @param fail            throw instead of logging
+     */
+    public StatementBudget(
+            @Value("${crud.statement-budget.default:0}") int defaultBudget,
+            @Value("${crud.statement-budget.endpoints:}") String endpointBudgets,
+            @Value("${crud.statement-budget.fail:false}") boolean fail) {
+        this.defaultBudget = defaultBudget;
+        this.endpointBudgets = parse(endpointBudgets);
+        this.fail = fail;
+    }
+
+    private static Map<String, Integer> parse(String endpointBudgets) {
+        Map<String, Integer> budgets = new HashMap<>();
+        for (String pair : endpointBudgets.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            int separator = pair.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Statement budget needs an \"=\": " + pair);
+            }
+            budgets.put(pair.substring(0, separator).trim(),
+                    Integer.parseInt(pair.substring(separator + 1).trim()));
+        }
+        return budgets;
+    }
+
+    /**
+     * @param method
+     * @param uri    the handler's uri pattern
+     * @return the endpoint's budget || 0 if unlimited
+     */
+    public int budgetFor(String method, String uri) {
+        return endpointBudgets.getOrDefault(method + " " + uri, defaultBudget);
+    }
+
+    /**
+     * Logs or throws if statements is over the endpoint's budget
+     *
+     * @param method
+     * @param uri        the handler's uri pattern
+     * @param statements run by the request
+     */
+    public void check(String method, String uri, int statements) {
+        int budget = budgetFor(method, uri);
+        if (budget <= 0 || statements <= budget) {
+            return;
+        }
+        String message = String.format("%s %s ran %d JDBC statements, over its budget of %d",
+                method, uri, statements, budget);
+        if (fail) {
+            throw new StatementBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.crud_project.crud.metrics;
+
+/**
+ * Thrown when a request ran more JDBC statements than its endpoint's budget
+ * and the budget is set to fail, which only tests should do
+ */
+public class StatementBudgetExceededException extends IllegalStateException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,94 @@
+package com.crud_project.crud.metrics;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.crud_project.crud.configuration.StaticResourceConfig;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records how many JDBC statements each request ran as
+ * http.server.jdbc.statements, tagged like http.server.requests by method and
+ * uri pattern, and checks it against the endpoint's StatementBudget. Runs
+ * first so statements made by the security filters (login) are included
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "http.server.jdbc.statements";
+
+    /**
+     * Request attribute holding the request's statement count once it's done
+     */
+    public static final String STATEMENTS_ATTRIBUTE = StatementCountFilter.class.getName() + ".statements";
+
+    /**
+     * Handled by Spring Security before any handler mapping, so they have no
+     * pattern of their own
+     */
+    private static final Set<String> SECURITY_PATHS = Set.of("/auth/login", "/auth/logout");
+
+    private final MeterRegistry meterRegistry;
+    private final StatementBudget statementBudget;
+
+    // static files never touch the database
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return StaticResourceConfig.isStaticResource(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain)
+            throws ServletException, IOException {
+
+        JdbcStatementCounter.begin();
+        int statements;
+        String uri;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = JdbcStatementCounter.end();
+            uri = uri(request);
+            request.setAttribute(STATEMENTS_ATTRIBUTE, statements);
+            DistributionSummary.builder(METRIC_NAME)
+                    .description("JDBC statements executed per request")
+                    .serviceLevelObjectives(1, 2, 5, 10, 20, 50)
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+        // only reached if the request didn't throw, it has its own exception otherwise
+        statementBudget.check(request.getMethod(), uri, statements);
+    }
+
+    /**
+     * @return the matched handler pattern, never the raw uri of an unmatched
+     *         request, so tags stay bounded
+     */
+    static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return SECURITY_PATHS.contains(path) ? path : "UNKNOWN";
+    }
+}
@@ -0,0 +1,10 @@
+package com.crud_project.crud.repository;
+
+public interface UserAuthProjection {
+
+    Integer getId();
+
+    String getUserName();
+
+    String getHashedPassword();
+}
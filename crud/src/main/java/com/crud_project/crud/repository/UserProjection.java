@@ -2,6 +2,8 @@ package com.crud_project.crud.repository;
 
 public interface UserProjection {
 
+    Integer getId();
+
     String getUserName();
 
     int getAwCrudsPerformed();
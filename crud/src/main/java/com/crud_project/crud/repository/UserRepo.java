@@ -1,19 +1,24 @@
 package com.crud_project.crud.repository;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.crud_project.crud.entity.User;
 
+import jakarta.transaction.Transactional;
+
 // Repository interface that provide CRUD operations for User entity
-public interface UserRepo extends JpaRepository<User, Integer> {
+public interface UserRepo extends JpaRepository<User, Integer>, UserRepoCustom {
 
     final static String USER_PROJECTION_FIELDS = "u.id as id, u.userName as userName, u.awCrudsPerformed as awCrudsPerformed, u.dead as dead";
 
@@ -26,13 +31,49 @@ public interface UserRepo extends JpaRepository<User, Integer> {
     @Query("SELECT " + USER_PROJECTION_FIELDS + " FROM User u WHERE u.userName = :userName")
     Optional<UserProjection> findUserProjectionByUserName(@Param("userName") String userName);
 
+    // only what authentication needs, no entity or version is loaded
+    @Query("SELECT u.id as id, u.userName as userName, u.hashedPassword as hashedPassword FROM User u WHERE u.userName = :userName")
+    Optional<UserAuthProjection> findUserAuthProjectionByUserName(@Param("userName") String userName);
+
     // pagination to projections seems to break when @version is involved so
-    // explicit @query fixes it
-    @Query("SELECT " + USER_PROJECTION_FIELDS + " FROM User u")
-    Page<UserProjection> findAllUserProjectionBy(Pageable pageable);
+    // explicit @query fixes it. A Slice, so no count query runs
+    @Query("SELECT " + USER_PROJECTION_FIELDS + " FROM User u ORDER BY u.id")
+    Slice<UserProjection> findUserProjectionSliceBy(Pageable pageable);
+
+    // keyset pagination, seeks by id so every page costs the same at any depth
+    @Query("SELECT " + USER_PROJECTION_FIELDS + " FROM User u WHERE u.id > :afterId ORDER BY u.id ASC")
+    List<UserProjection> findUserProjectionsAfterId(@Param("afterId") int afterId, Limit limit);
 
-    @Query("SELECT u FROM User u")
-    Page<User> findAllBy(Pageable pageable);
+    // led by the last row at or before the cursor, if there is one, so the
+    // caller knows whether there is a previous page from the same statement
+    @Query(value = """
+            SELECT p.* FROM (
+                (SELECT u.id AS "id", u.user_name AS "userName",
+                        u.aw_cruds_performed AS "awCrudsPerformed", u.dead AS "dead"
+                 FROM users u WHERE u.id <= :afterId ORDER BY u.id DESC LIMIT 1)
+                UNION ALL
+                (SELECT u.id, u.user_name, u.aw_cruds_performed, u.dead
+                 FROM users u WHERE u.id > :afterId ORDER BY u.id LIMIT :limit)
+            ) p
+            ORDER BY p."id" ASC
+            """, nativeQuery = true)
+    List<UserProjection> findUserProjectionsAfterIdWithPrevious(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    // descending so the limit keeps the rows closest to the cursor. Led by the
+    // first row at or after the cursor, if there is one, so the caller knows
+    // whether there is a next page from the same statement
+    @Query(value = """
+            SELECT p.* FROM (
+                (SELECT u.id AS "id", u.user_name AS "userName",
+                        u.aw_cruds_performed AS "awCrudsPerformed", u.dead AS "dead"
+                 FROM users u WHERE u.id >= :beforeId ORDER BY u.id LIMIT 1)
+                UNION ALL
+                (SELECT u.id, u.user_name, u.aw_cruds_performed, u.dead
+                 FROM users u WHERE u.id < :beforeId ORDER BY u.id DESC LIMIT :limit)
+            ) p
+            ORDER BY p."id" DESC
+            """, nativeQuery = true)
+    List<UserProjection> findUserProjectionsBeforeIdWithNext(@Param("beforeId") int beforeId, @Param("limit") int limit);
 
     @Query("SELECT u FROM User u WHERE u.id IN :ids")
     Set<User> findAllByIdIn(Collection<Integer> ids);
@@ -40,8 +81,203 @@ public interface UserRepo extends JpaRepository<User, Integer> {
     @Query("SELECT u FROM User u WHERE u.userName IN :names")
     Set<User> findAllByUserNameIn(Collection<String> names);
 
-    @Query("SELECT u.userName FROM User u")
-    Page<String> findAllUserNames(Pageable pageable);
+    // Single statement wheel spin, a "page" CTE of (id, user_name) rows is
+    // placed between the spinner and the shared tail
+    final static String SPIN_SPINNER_CTE = """
+            WITH spinner AS (
+                SELECT u.id, u.user_name FROM users u
+                WHERE u.user_name = :userName AND u.dead = false
+            ),
+            """;
+
+    final static String SPIN_OFFSET_PAGE_CTE = """
+            page AS (
+                SELECT u.id, u.user_name FROM users u
+                ORDER BY u.id LIMIT :size OFFSET :offset
+            ),
+            """;
+
+    final static String SPIN_AFTER_ID_PAGE_CTE = """
+            page AS (
+                SELECT u.id, u.user_name FROM users u
+                WHERE u.id > :cursor
+                ORDER BY u.id LIMIT :size
+            ),
+            """;
+
+    final static String SPIN_BEFORE_ID_PAGE_CTE = """
+            page AS (
+                SELECT u.id, u.user_name FROM users u
+                WHERE u.id < :cursor
+                ORDER BY u.id DESC LIMIT :size
+            ),
+            """;
+
+    // The global wheel's page is a sample of living users from the
+    // leaderboard, see LeaderboardService.sampleAlive, looked up by name in
+    // sample order. Users that died since the leaderboard saw them are
+    // skipped and the spares after them take their place. The spinner is only
+    // found if the page isn't empty, so a wheel of just the spinner, a
+    // certain self kill, is rejected rather than spun
+    final static String SPIN_GLOBAL_CTE = """
+            WITH page AS (
+                SELECT u.id, u.user_name FROM users u
+                WHERE u.user_name = ANY(CAST(:names AS varchar[])) AND u.dead = false
+                  AND u.user_name <> :userName
+                ORDER BY array_position(CAST(:names AS varchar[]), u.user_name)
+                LIMIT :size
+            ),
+            spinner AS (
+                SELECT u.id, u.user_name FROM users u
+                WHERE u.user_name = :userName AND u.dead = false
+                  AND EXISTS (SELECT 1 FROM page)
+            ),
+            """;
+
+    // The spinner is always the first participant, the rest keep page order.
+    // The winner index is taken from :roll in [0, 1) so the rng stays in java.
+    // The spinner row is always locked before the update and the update only
+    // runs if its latest version is alive, so a spinner killed by a
+    // concurrent spin while waiting updates nothing, its winner included.
+    // With :lockRows the winner is locked with it in id order, the update
+    // otherwise locks it in whatever order its plan reads the rows, so two
+    // spins crossing the same users can't deadlock
+    final static String SPIN_TAIL = """
+            participants AS (
+                SELECT s.id, s.user_name, 0 AS pos FROM spinner s
+                UNION ALL
+                SELECT p.id, p.user_name, 1 AS pos FROM page p WHERE p.user_name <> :userName
+            ),
+            ranked AS (
+                SELECT r.user_name,
+                       row_number() OVER (ORDER BY r.pos, r.id) - 1 AS idx,
+                       count(*) OVER () AS total
+                FROM participants r
+                WHERE EXISTS (SELECT 1 FROM spinner)
+            ),
+            winner AS (
+                SELECT r.user_name FROM ranked r WHERE r.idx = floor(:roll * r.total)
+            ),
+            locked AS (
+                SELECT u.user_name, u.dead FROM users u
+                WHERE u.user_name IN (SELECT s.user_name FROM spinner s
+                                      UNION
+                                      SELECT w.user_name FROM winner w WHERE CAST(:lockRows AS boolean))
+                ORDER BY u.id
+                FOR NO KEY UPDATE
+            ),
+            updated AS (
+                UPDATE users u
+                SET dead = u.dead OR u.user_name IN (SELECT w.user_name FROM winner w),
+                    aw_cruds_performed = u.aw_cruds_performed
+                        + CASE WHEN u.user_name = :userName THEN 1 ELSE 0 END,
+                    version = u.version + 1
+                WHERE u.user_name IN (SELECT s.user_name FROM spinner s UNION SELECT w.user_name FROM winner w)
+                  AND (u.user_name <> :userName OR u.dead = false)
+                  AND EXISTS (SELECT 1 FROM locked l WHERE l.user_name = :userName AND NOT l.dead)
+                RETURNING u.user_name, u.aw_cruds_performed
+            )
+            SELECT (SELECT w.user_name FROM winner w) AS "winnerName",
+                   (SELECT string_agg(r.user_name, ',' ORDER BY r.idx) FROM ranked r) AS "participants",
+                   (SELECT count(*) FROM updated) AS "updatedRows",
+                   (SELECT up.aw_cruds_performed FROM updated up
+                    WHERE up.user_name = :userName) AS "spinnerCruds",
+                   (SELECT up.aw_cruds_performed FROM updated up
+                    WHERE up.user_name IN (SELECT w.user_name FROM winner w)) AS "winnerCruds"
+            """;
+
+    /**
+     * Picks the winner from the spinner plus the offset page of users and
+     * applies both updates in one round trip. Dead or missing spinners update
+     * nothing and return a null winner
+     *
+     * @param userName
+     * @param offset
+     * @param size
+     * @param roll     random value in [0, 1) used to pick the winner
+     * @param lockRows lock the spinner and winner in id order before updating
+     * @return WheelSpinOutcome
+     */
+    @Transactional
+    @Query(value = SPIN_SPINNER_CTE + SPIN_OFFSET_PAGE_CTE + SPIN_TAIL, nativeQuery = true)
+    WheelSpinOutcome spinWheel(
+            @Param("userName") String userName,
+            @Param("offset") long offset,
+            @Param("size") int size,
+            @Param("roll") double roll,
+            @Param("lockRows") boolean lockRows);
+
+    /**
+     * Same as {@link #spinWheel} but the participants are the keyset page
+     * after the cursor id
+     */
+    @Transactional
+    @Query(value = SPIN_SPINNER_CTE + SPIN_AFTER_ID_PAGE_CTE + SPIN_TAIL, nativeQuery = true)
+    WheelSpinOutcome spinWheelAfterId(
+            @Param("userName") String userName,
+            @Param("cursor") int cursor,
+            @Param("size") int size,
+            @Param("roll") double roll,
+            @Param("lockRows") boolean lockRows);
+
+    /**
+     * Same as {@link #spinWheel} but the participants are the keyset page
+     * before the cursor id
+     */
+    @Transactional
+    @Query(value = SPIN_SPINNER_CTE + SPIN_BEFORE_ID_PAGE_CTE + SPIN_TAIL, nativeQuery = true)
+    WheelSpinOutcome spinWheelBeforeId(
+            @Param("userName") String userName,
+            @Param("cursor") int cursor,
+            @Param("size") int size,
+            @Param("roll") double roll,
+            @Param("lockRows") boolean lockRows);
+
+    /**
+     * Same as {@link #spinWheel} but the participants are the first size
+     * living users of names, and the spin is rejected if there are none
+     *
+     * @param userName
+     * @param names    random living users, with spares
+     * @param size
+     * @param roll     random value in [0, 1) used to pick the winner
+     * @param lockRows lock the spinner and winner in id order before updating
+     * @return WheelSpinOutcome
+     */
+    @Transactional
+    @Query(value = SPIN_GLOBAL_CTE + SPIN_TAIL, nativeQuery = true)
+    WheelSpinOutcome spinWheelGlobal(
+            @Param("userName") String userName,
+            @Param("names") String[] names,
+            @Param("size") int size,
+            @Param("roll") double roll,
+            @Param("lockRows") boolean lockRows);
 
     boolean existsByUserName(String userName);
+
+    // one statement for any number of names, an IN list would need a bind
+    // parameter per name
+    @Query(value = "SELECT u.user_name FROM users u WHERE u.user_name = ANY(CAST(:names AS varchar[]))", nativeQuery = true)
+    Set<String> findExistingUserNames(@Param("names") String[] names);
+
+    // Bulk deletes run as single statements without loading entities, so the
+    // persistence context is flushed before and cleared after
+
+    // returns the name so only its cache entries need evicting, a returning
+    // DELETE runs as a query so it isn't @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM users u WHERE u.id = :id RETURNING u.user_name", nativeQuery = true)
+    String deleteUserById(@Param("id") int id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM users u WHERE u.user_name = ANY(CAST(:names AS varchar[]))", nativeQuery = true)
+    int deleteByUserNames(@Param("names") String[] names);
+
+    // deletes at most size users, callers loop until fewer than size are
+    // deleted so no one statement holds its locks for the whole table
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM users WHERE id IN (SELECT u.id FROM users u LIMIT :size)", nativeQuery = true)
+    int deleteChunk(@Param("size") int size);
 }
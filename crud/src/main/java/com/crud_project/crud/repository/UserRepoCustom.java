@@ -0,0 +1,25 @@
+package com.crud_project.crud.repository;
+
+import java.util.List;
+
+import com.crud_project.crud.entity.User;
+
+// Operations on User that need the EntityManager directly
+public interface UserRepoCustom {
+
+    /**
+     * Detaches every managed entity so users changed by a native statement
+     * are read again, same as Modifying(clearAutomatically = true) for
+     * queries that return rows. Flush first or pending changes are lost
+     */
+    void detachAll();
+
+    /**
+     * Persists new users through JDBC batches, flushing and detaching every
+     * batch so the persistence context stays small. Ids are assigned to the
+     * given users. Detaches everything else in the persistence context too
+     *
+     * @param users
+     */
+    void persistInBatches(List<User> users);
+}
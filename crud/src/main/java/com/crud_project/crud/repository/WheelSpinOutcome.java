@@ -0,0 +1,32 @@
+package com.crud_project.crud.repository;
+
+/**
+ * Row returned by the single statement wheel spin
+ */
+public interface WheelSpinOutcome {
+
+    /**
+     * @return name of the user marked dead, null when the spin was rejected
+     */
+    String getWinnerName();
+
+    /**
+     * @return participant names in wheel order, joined by ","
+     */
+    String getParticipants();
+
+    /**
+     * @return number of users rows the spin updated
+     */
+    long getUpdatedRows();
+
+    /**
+     * @return the spinner's aw cruds performed after the spin || null
+     */
+    Integer getSpinnerCruds();
+
+    /**
+     * @return the winner's aw cruds performed after the spin || null
+     */
+    Integer getWinnerCruds();
+}
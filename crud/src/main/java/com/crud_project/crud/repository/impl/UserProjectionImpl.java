@@ -6,21 +6,27 @@ import com.crud_project.crud.entity.User;
 import com.crud_project.crud.repository.UserProjection;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.ToString;
 
 @Getter
+@ToString
+@EqualsAndHashCode
 @AllArgsConstructor
 public class UserProjectionImpl implements UserProjection, Serializable {
 
+    private final Integer id;
     private final String userName;
     private final int awCrudsPerformed;
     private final boolean dead;
 
     public static UserProjectionImpl from(UserProjection projection) {
-        return new UserProjectionImpl(projection.getUserName(), projection.getAwCrudsPerformed(), projection.isDead());
+        return new UserProjectionImpl(projection.getId(), projection.getUserName(), projection.getAwCrudsPerformed(),
+                projection.isDead());
     }
 
     public static UserProjectionImpl from(User user) {
-        return new UserProjectionImpl(user.getUserName(), user.getAwCrudsPerformed(), user.isDead());
+        return new UserProjectionImpl(user.getId(), user.getUserName(), user.getAwCrudsPerformed(), user.isDead());
     }
 }
@@ -0,0 +1,41 @@
+package com.crud_project.crud.repository.impl;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.repository.UserRepoCustom;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+
+public class UserRepoCustomImpl implements UserRepoCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // flush as often as hibernate sends a batch
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    public void detachAll() {
+        entityManager.clear();
+    }
+
+    @Override
+    @Transactional
+    public void persistInBatches(List<User> users) {
+        for (int i = 0; i < users.size(); i++) {
+            entityManager.persist(users.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
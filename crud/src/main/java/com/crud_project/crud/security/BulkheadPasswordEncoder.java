@@ -0,0 +1,135 @@
+package com.crud_project.crud.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs a (slow, CPU bound) PasswordEncoder on its own fixed size pool with a
+ * bounded queue, so a burst of logins or registrations can use at most that
+ * many cores and can't tie up every request thread for long. Work that
+ * doesn't fit in the queue, or doesn't finish in time, fails fast with
+ * PasswordHashingRejectedException. Pool and queue metrics are the executor.*
+ * meters tagged name=password.hashing, time spent hashing (not queueing) is
+ * password.hashing.duration and rejections are password.hashing.rejected
+ */
+@Slf4j
+public class BulkheadPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final String METRIC_PREFIX = "password.hashing";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Counter encodeRejections;
+    private final Counter matchesRejections;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    /**
+     * @param delegate      encoder doing the hashing
+     * @param threads       hashes running at once
+     * @param queueCapacity hashes waiting at most, more are rejected
+     * @param timeoutMillis how long a caller waits for its hash
+     * @param meterRegistry
+     */
+    public BulkheadPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, METRIC_PREFIX);
+        this.encodeRejections = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Password hashes rejected because the hashing pool was full or too slow")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesRejections = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Password hashes rejected because the hashing pool was full or too slow")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.encodeTimer = hashingTimer("encode", meterRegistry);
+        this.matchesTimer = hashingTimer("matches", meterRegistry);
+    }
+
+    private static Timer hashingTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder(METRIC_PREFIX + ".duration")
+                .description("Time spent hashing on the hashing pool, excluding queueing")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.recordCallable(() -> delegate.encode(rawPassword)), encodeRejections);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.recordCallable(() -> delegate.matches(rawPassword, encodedPassword)),
+                matchesRejections);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task, Counter rejections) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Password hashing queue full, rejecting");
+            throw new PasswordHashingRejectedException("Password hashing is at capacity", e);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            log.warn("Password hashing timed out after {}ms", timeoutMillis);
+            throw new PasswordHashingRejectedException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
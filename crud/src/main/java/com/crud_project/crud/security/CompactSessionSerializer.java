@@ -0,0 +1,92 @@
+package com.crud_project.crud.security;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+/**
+ * Session attribute values as the jdbc session store keeps them. Java
+ * serialization, deflated whenever that is smaller, which it is for the
+ * security context (mostly class descriptors) but not for tiny values. The
+ * first byte says which
+ */
+public class CompactSessionSerializer implements Serializer<Object>, Deserializer<Object> {
+
+    static final int RAW = 0;
+    static final int DEFLATED = 1;
+
+    private final ClassLoader classLoader;
+
+    public CompactSessionSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @return the Object to byte[] and byte[] to Object converters Spring
+     *         Session stores attributes with
+     */
+    public GenericConversionService conversionService() {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, new SerializingConverter(this));
+        conversionService.addConverter(byte[].class, Object.class, new DeserializingConverter(this));
+        return conversionService;
+    }
+
+    @Override
+    public void serialize(Object object, OutputStream outputStream) throws IOException {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(serialized)) {
+            objectOutputStream.writeObject(object);
+        }
+        byte[] raw = serialized.toByteArray();
+        byte[] deflated = deflate(raw);
+        if (deflated.length < raw.length) {
+            outputStream.write(DEFLATED);
+            outputStream.write(deflated);
+        } else {
+            outputStream.write(RAW);
+            outputStream.write(raw);
+        }
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream) throws IOException {
+        int format = inputStream.read();
+        InputStream serialized = switch (format) {
+            case RAW -> inputStream;
+            case DEFLATED -> new InflaterInputStream(inputStream);
+            default -> throw new IOException("Unknown session attribute format: " + format);
+        };
+        try (ObjectInputStream objectInputStream = new ConfigurableObjectInputStream(serialized, classLoader)) {
+            return objectInputStream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Session attribute class not found", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(raw.length);
+            try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(deflated, deflater)) {
+                deflaterOutputStream.write(raw);
+            }
+            return deflated.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -14,6 +14,9 @@ import lombok.Builder;
 
 public class CustomUserDetails implements UserDetails, CredentialsContainer {
 
+    // the principal of the security context in the session
+    private static final long serialVersionUID = 1L;
+
     private final Integer id;
     private final String username;
     private @Nullable
@@ -78,6 +81,8 @@ public class CustomUserDetails implements UserDetails, CredentialsContainer {
 
     public static class CustomGrantedAuthority implements GrantedAuthority {
 
+        private static final long serialVersionUID = 1L;
+
         private final String authority;
 
         public CustomGrantedAuthority(String authority) {
@@ -0,0 +1,47 @@
+package com.crud_project.crud.security;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes expired sessions of the jdbc session store in chunks, every chunk
+ * commits on its own so locks are held briefly. Rows another node is already
+ * deleting are skipped rather than waited for, so every node can run it
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ExpiredSessionCleaner {
+
+    static final String DELETE_EXPIRED_CHUNK = """
+            DELETE FROM spring_session
+            WHERE primary_id IN (
+                SELECT primary_id FROM spring_session
+                WHERE expiry_time < ?
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            """;
+
+    private final JdbcOperations jdbcOperations;
+    private final int chunkSize;
+
+    /**
+     * @return number of sessions deleted
+     */
+    @Scheduled(cron = "${crud.session.cleanup-cron:0 * * * * *}")
+    public long deleteExpiredSessions() {
+        long now = System.currentTimeMillis();
+        long deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = jdbcOperations.update(DELETE_EXPIRED_CHUNK, now, chunkSize);
+            deleted += chunkDeleted;
+        } while (chunkDeleted == chunkSize);
+        if (deleted > 0) {
+            log.debug("Deleted {} expired sessions", deleted);
+        }
+        return deleted;
+    }
+}
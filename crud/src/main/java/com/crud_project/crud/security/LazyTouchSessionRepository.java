@@ -0,0 +1,122 @@
+package com.crud_project.crud.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+/**
+ * Spring Session touches the session on every request, which is a row update
+ * for a stored session even when nothing in it changed. This only passes a
+ * touch on once the stored last access time is touchInterval old, so a
+ * request that changes no attributes writes nothing. Sessions may expire up
+ * to touchInterval early, it should be well below their timeout
+ */
+public class LazyTouchSessionRepository<S extends Session> implements SessionRepository<Session> {
+
+    private final SessionRepository<S> repository;
+    private final Duration touchInterval;
+
+    public LazyTouchSessionRepository(SessionRepository<S> repository, Duration touchInterval) {
+        this.repository = repository;
+        this.touchInterval = touchInterval;
+    }
+
+    @Override
+    public Session createSession() {
+        return new LazyTouchSession(repository.createSession());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void save(Session session) {
+        repository.save(((LazyTouchSession) session).session);
+    }
+
+    /**
+     * @return Session || null if there is none or it expired
+     */
+    @Override
+    public Session findById(String id) {
+        S session = repository.findById(id);
+        return session == null ? null : new LazyTouchSession(session);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        repository.deleteById(id);
+    }
+
+    private final class LazyTouchSession implements Session {
+
+        private final S session;
+
+        private LazyTouchSession(S session) {
+            this.session = session;
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            if (!lastAccessedTime.isBefore(session.getLastAccessedTime().plus(touchInterval))) {
+                session.setLastAccessedTime(lastAccessedTime);
+            }
+        }
+
+        @Override
+        public String getId() {
+            return session.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return session.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return session.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return session.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            session.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            session.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return session.getCreationTime();
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return session.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            session.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return session.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return session.isExpired();
+        }
+    }
+}
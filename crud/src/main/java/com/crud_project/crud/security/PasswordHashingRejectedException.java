@@ -0,0 +1,15 @@
+package com.crud_project.crud.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when the password hashing executor is saturated or too slow. An
+ * AuthenticationServiceException so a login that hits it fails like any other
+ * login instead of erroring
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
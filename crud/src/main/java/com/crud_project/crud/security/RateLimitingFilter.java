@@ -1,18 +1,15 @@
 package com.crud_project.crud.security;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
+import com.crud_project.crud.configuration.StaticResourceConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,13 +21,18 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class RateLimitingFilter implements Filter {
 
-    private static final int MAX_REQUESTS_PER_MIN = 100;
-    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-
-    @PostConstruct
-    public void initScheduler() {
-        scheduler.scheduleAtFixedRate(() -> requestCounts.clear(), 0, 1, TimeUnit.MINUTES);
+    private final TokenBucketRateLimiter rateLimiter;
+    private final Counter rejections;
+
+    public RateLimitingFilter(
+            @Value("${crud.rate-limit.requests-per-minute:100}") int requestsPerMinute,
+            @Value("${crud.rate-limit.burst:100}") int burst,
+            @Value("${crud.rate-limit.max-clients:10000}") int maxClients,
+            MeterRegistry meterRegistry) {
+        this.rateLimiter = new TokenBucketRateLimiter(requestsPerMinute, burst, maxClients);
+        this.rejections = Counter.builder("rate.limit.rejected")
+                .description("Requests rejected with 429 by the per client rate limit")
+                .register(meterRegistry);
     }
 
     @Override
@@ -38,22 +40,17 @@ public class RateLimitingFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        String clientIp = httpRequest.getRemoteAddr();
-        requestCounts.putIfAbsent(clientIp, new AtomicInteger(0));
-        int currentCount = requestCounts.get(clientIp).incrementAndGet();
-
-        if (currentCount > MAX_REQUESTS_PER_MIN) {
+        // immutable and cached by browsers, not worth a token
+        if (StaticResourceConfig.isStaticResource(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!rateLimiter.tryAcquire(httpRequest.getRemoteAddr())) {
+            rejections.increment();
             httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             httpResponse.getWriter().write("Too many requests. Please try again later.");
             return;
         }
         chain.doFilter(request, response);
     }
-
-    @PreDestroy
-    public void shutdownScheduler() {
-        if (scheduler != null) {
-            scheduler.shutdown();
-        }
-    }
 }
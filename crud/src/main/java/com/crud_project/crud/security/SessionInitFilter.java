@@ -2,12 +2,15 @@ package com.crud_project.crud.security;
 
 import java.io.IOException;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.WebUtils;
 
+import com.crud_project.crud.configuration.StaticResourceConfig;
+import com.crud_project.crud.controller.PageStateArgumentResolver;
 import com.crud_project.crud.controller.SessionKeys;
 import com.crud_project.crud.dvo.PageState;
 
@@ -20,6 +23,19 @@ import jakarta.servlet.http.HttpSession;
 @Component
 public class SessionInitFilter extends OncePerRequestFilter {
 
+    private final boolean sessionPageState;
+
+    public SessionInitFilter(@Value("${crud.page-state.mode:session}") String pageStateMode) {
+        this.sessionPageState = PageStateArgumentResolver.Mode
+                .fromProperty(pageStateMode) == PageStateArgumentResolver.Mode.SESSION;
+    }
+
+    // in request mode the page state isn't kept in the session at all
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !sessionPageState || StaticResourceConfig.isStaticResource(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
             HttpServletResponse response,
@@ -0,0 +1,114 @@
+package com.crud_project.crud.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Per key token buckets, kept as a single "theoretical arrival time" per key
+ * (GCRA) so refilling needs no timer and no floating point. Keys live in a
+ * fixed number of lock striped LRU maps, a full stripe drops its least
+ * recently used key, which is usually idle (bucket full again) so forgetting
+ * it loses nothing. Only a key's first request allocates
+ */
+public class TokenBucketRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    private static final int STRIPES = 64;
+
+    private static final class Bucket {
+
+        // when the bucket would be full again if no more requests came
+        private long fullAt;
+
+        private Bucket(long fullAt) {
+            this.fullAt = fullAt;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param requestsPerMinute sustained rate per key
+     * @param burst             requests a key may make at once after idling
+     * @param maxKeys           keys tracked at most, least recently used go
+     *                          first
+     */
+    public TokenBucketRateLimiter(int requestsPerMinute, int burst, int maxKeys) {
+        this(requestsPerMinute, burst, maxKeys, System::nanoTime);
+    }
+
+    public TokenBucketRateLimiter(int requestsPerMinute, int burst, int maxKeys, LongSupplier nanoClock) {
+        if (requestsPerMinute < 1 || burst < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("Rate, burst and max keys must be positive");
+        }
+        this.intervalNanos = NANOS_PER_MINUTE / requestsPerMinute;
+        this.burstToleranceNanos = intervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+        int stripeCapacity = Math.max(1, (maxKeys + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    /**
+     * Takes a token from key's bucket
+     *
+     * @param key
+     * @return true if the request is allowed
+     */
+    public boolean tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        Stripe stripe = stripes[stripeIndex(key)];
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                // a new key starts full, minus this request's token
+                stripe.put(key, new Bucket(now + intervalNanos));
+                return true;
+            }
+            long fullAt = bucket.fullAt - now < 0 ? now : bucket.fullAt;
+            if (fullAt - now > burstToleranceNanos) {
+                return false;
+            }
+            bucket.fullAt = fullAt + intervalNanos;
+            return true;
+        }
+    }
+
+    /**
+     * @return number of keys currently tracked
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static int stripeIndex(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
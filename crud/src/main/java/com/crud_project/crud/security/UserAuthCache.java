@@ -0,0 +1,68 @@
+package com.crud_project.crud.security;
+
+import java.io.Serializable;
+import java.util.Set;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.crud_project.crud.configuration.CacheConfig;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * UserCache for DaoAuthenticationProvider over the userDetails Spring cache.
+ * Holds immutable snapshots and hands out a new CustomUserDetails per lookup,
+ * as authentication erases the credentials of the one it is given.
+ * Evicted by UserCacheInvalidator
+ */
+@Component
+public class UserAuthCache implements UserCache {
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Snapshot implements Serializable {
+
+        private final Integer id;
+        private final String userName;
+        private final String hashedPassword;
+    }
+
+    private final Cache cache;
+
+    public UserAuthCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(CacheConfig.USER_DETAILS);
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        Snapshot snapshot = cache.get(username, Snapshot.class);
+        if (snapshot == null) {
+            return null;
+        }
+        return CustomUserDetails.builder()
+                .id(snapshot.getId())
+                .username(snapshot.getUserName())
+                .password(snapshot.getHashedPassword())
+                .authorities(Set.of("USER"))
+                .build();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (user.getPassword() == null) {
+            return;
+        }
+        Integer id = user instanceof CustomUserDetails customUser ? customUser.getId() : null;
+        cache.put(user.getUsername(), new Snapshot(id, user.getUsername(), user.getPassword()));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.evict(username);
+    }
+}
@@ -7,12 +7,12 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import com.crud_project.crud.entity.User;
+import com.crud_project.crud.repository.UserAuthProjection;
 import com.crud_project.crud.repository.UserRepo;
 
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 
+// Lookups are cached by UserAuthCache in front of this, see WebSecurityConfig
 @Service
 @AllArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -20,17 +20,16 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     private final UserRepo userRepo;
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        final User jpaUser = userRepo
-                .findByUserName(username)
+        final UserAuthProjection user = userRepo
+                .findUserAuthProjectionByUserName(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
         return CustomUserDetails.builder()
-                .username(jpaUser.getUserName())
-                .password(jpaUser.getHashedPassword())
+                .username(user.getUserName())
+                .password(user.getHashedPassword())
                 .authorities(Set.of("USER"))
-                .id(jpaUser.getId())
+                .id(user.getId())
                 .build();
     }
 }
@@ -1,13 +1,19 @@
 package com.crud_project.crud.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import com.crud_project.crud.configuration.StaticResourceConfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -18,12 +24,27 @@ public class WebSecurityConfig {
     private final UserDetailsServiceImpl userDetailsService;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public DaoAuthenticationProvider authenticationProvider(UserAuthCache userAuthCache,
+            PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        // on a password mismatch with a cached user it retries from the db, so
+        // a stale entry can't lock anyone out
+        provider.setUserCache(userAuthCache);
+        return provider;
+    }
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider)
+            throws Exception {
         http
-                .userDetailsService(userDetailsService)
+                .authenticationProvider(authenticationProvider)
                 .authorizeHttpRequests(requests -> requests
-                        .requestMatchers("/error", "/", "/home", "/auth/register", "/auth/login", "/css/**", "/data/**",
-                                "/js/**", "/svg/**", "/.well-known/**")
+                        .requestMatchers("/error", "/", "/home", "/auth/register", "/auth/login", "/data/**",
+                                "/.well-known/**")
+                        .permitAll()
+                        // for health checks and the Prometheus scraper, the other actuator endpoints need a login
+                        .requestMatchers("/actuator/health", "/actuator/prometheus")
                         .permitAll()
                         .anyRequest().authenticated())
                 .formLogin(form -> form
@@ -50,8 +71,24 @@ public class WebSecurityConfig {
         return http.build();
     }
 
+    // public, immutable files with nothing to protect, skipping the whole
+    // security filter chain for them. They go without its headers too
+    @Bean
+    public WebSecurityCustomizer ignoreStaticResources() {
+        return web -> web.ignoring().requestMatchers(StaticResourceConfig.PATHS);
+    }
+
+    // BCrypt runs on its own bounded pool, see BulkheadPasswordEncoder
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${crud.password-hashing.threads:0}") int threads,
+            @Value("${crud.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${crud.password-hashing.timeout-ms:5000}") long timeoutMillis) {
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        return new BulkheadPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, timeoutMillis,
+                meterRegistry);
     }
 }
@@ -0,0 +1,281 @@
+package com.crud_project.crud.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.crud_project.crud.dvo.LeaderboardEntry;
+
+/**
+ * Users ordered by aw cruds performed (most first, ties by name) in a treap
+ * that tracks subtree sizes, and how many of them are alive, so insert,
+ * remove, rank and select (among every user or just the living) are all
+ * O(log n). Not thread safe, callers guard it
+ */
+public class LeaderboardIndex {
+
+    private static final class Node {
+
+        private final String userName;
+        private final int score;
+        private final boolean dead;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int size = 1;
+        private int alive;
+
+        private Node(String userName, int score, boolean dead, int priority) {
+            this.userName = userName;
+            this.score = score;
+            this.dead = dead;
+            this.priority = priority;
+            this.alive = dead ? 0 : 1;
+        }
+    }
+
+    private static final class Entry {
+
+        private Integer id;
+        private final Node node;
+
+        private Entry(Integer id, Node node) {
+            this.id = id;
+            this.node = node;
+        }
+    }
+
+    private final Map<String, Entry> entriesByName = new HashMap<>();
+    private final Map<Integer, String> namesById = new HashMap<>();
+    private final SplittableRandom priorities = new SplittableRandom();
+    private Node root;
+
+    public int size() {
+        return size(root);
+    }
+
+    public int aliveCount() {
+        return alive(root);
+    }
+
+    /**
+     * Adds the user or moves them to their new score
+     *
+     * @param id       may be null if the user is already indexed
+     * @param userName
+     * @param score
+     * @param dead
+     */
+    public void upsert(Integer id, String userName, int score, boolean dead) {
+        Entry entry = entriesByName.get(userName);
+        if (entry != null && entry.node.score == score && entry.node.dead == dead) {
+            if (id != null) {
+                namesById.put(id, userName);
+                entry.id = id;
+            }
+            return;
+        }
+        if (entry != null) {
+            root = remove(root, entry.node);
+            if (id == null) {
+                id = entry.id;
+            }
+        }
+
+        Node node = new Node(userName, score, dead, priorities.nextInt());
+        Node[] parts = split(root, node);
+        root = merge(merge(parts[0], node), parts[1]);
+
+        entriesByName.put(userName, new Entry(id, node));
+        if (id != null) {
+            namesById.put(id, userName);
+        }
+    }
+
+    public void removeByName(String userName) {
+        Entry entry = entriesByName.remove(userName);
+        if (entry == null) {
+            return;
+        }
+        root = remove(root, entry.node);
+        if (entry.id != null) {
+            namesById.remove(entry.id);
+        }
+    }
+
+    public void removeById(int id) {
+        String userName = namesById.get(id);
+        if (userName != null) {
+            removeByName(userName);
+        }
+    }
+
+    /**
+     * @param userName
+     * @return 1 based rank || 0 if the user isn't indexed
+     */
+    public int rankOf(String userName) {
+        Entry entry = entriesByName.get(userName);
+        if (entry == null) {
+            return 0;
+        }
+        Node target = entry.node;
+        int before = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(target, node);
+            if (cmp == 0) {
+                return before + size(node.left) + 1;
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param userName
+     * @return LeaderboardEntry || null
+     */
+    public LeaderboardEntry get(String userName) {
+        int rank = rankOf(userName);
+        if (rank == 0) {
+            return null;
+        }
+        return toEntry(rank, entriesByName.get(userName).node);
+    }
+
+    /**
+     * @param fromRank 1 based, inclusive
+     * @param toRank   1 based, inclusive
+     * @return entries in rank order, clamped to the indexed users
+     */
+    public List<LeaderboardEntry> range(int fromRank, int toRank) {
+        int from = Math.max(1, fromRank);
+        int to = Math.min(size(), toRank);
+        if (from > to) {
+            return Collections.emptyList();
+        }
+        List<LeaderboardEntry> entries = new ArrayList<>(to - from + 1);
+        for (int rank = from; rank <= to; rank++) {
+            entries.add(toEntry(rank, select(rank - 1)));
+        }
+        return entries;
+    }
+
+    /**
+     * @param index 0 based, among the living users in rank order
+     * @return the living user's name
+     */
+    public String selectAlive(int index) {
+        Node node = root;
+        while (node != null) {
+            int leftAlive = alive(node.left);
+            if (index < leftAlive) {
+                node = node.left;
+            } else if (index == leftAlive && !node.dead) {
+                return node.userName;
+            } else {
+                index -= leftAlive + (node.dead ? 0 : 1);
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    private LeaderboardEntry toEntry(int rank, Node node) {
+        return new LeaderboardEntry(rank, node.userName, node.score, node.dead);
+    }
+
+    private Node select(int index) {
+        Node node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    /**
+     * Most aw cruds first, then by name
+     */
+    private static int compare(Node a, Node b) {
+        int cmp = Integer.compare(b.score, a.score);
+        return cmp != 0 ? cmp : a.userName.compareTo(b.userName);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int alive(Node node) {
+        return node == null ? 0 : node.alive;
+    }
+
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        node.alive = alive(node.left) + alive(node.right) + (node.dead ? 0 : 1);
+        return node;
+    }
+
+    /**
+     * @return [nodes ordered before key, nodes ordered at or after key]
+     */
+    private static Node[] split(Node node, Node key) {
+        if (node == null) {
+            return new Node[] { null, null };
+        }
+        if (compare(node, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            return new Node[] { update(node), parts[1] };
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        return new Node[] { parts[0], update(node) };
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node remove(Node node, Node key) {
+        if (node == null) {
+            return null;
+        }
+        if (node == key) {
+            return merge(node.left, node.right);
+        }
+        if (compare(key, node) < 0) {
+            node.left = remove(node.left, key);
+        } else {
+            node.right = remove(node.right, key);
+        }
+        return update(node);
+    }
+}
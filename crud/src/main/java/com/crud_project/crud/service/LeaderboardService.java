@@ -0,0 +1,215 @@
+package com.crud_project.crud.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.random.RandomGenerator;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.crud_project.crud.dvo.LeaderboardEntry;
+import com.crud_project.crud.event.UserChangedEvent;
+import com.crud_project.crud.repository.UserProjection;
+import com.crud_project.crud.repository.UserRepo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+// In memory ranking by aw cruds performed, kept in step with UserChangedEvents
+public class LeaderboardService {
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final UserRepo userRepo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LeaderboardIndex index = new LeaderboardIndex();
+    // changes applied while a reload reads, one list per reload in progress
+    private final Set<List<UserChangedEvent>> reloadBuffers = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Rebuilds the index from the database by seeking through users in id
+     * order, the old index keeps serving until the new one is swapped in.
+     * Changes arriving meanwhile may be missing from rows read earlier, so
+     * they're applied to the new index again, in order, before the swap
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<UserChangedEvent> missed = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            reloadBuffers.add(missed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LeaderboardIndex loaded = new LeaderboardIndex();
+        try {
+            int cursor = 0;
+            List<UserProjection> chunk;
+            do {
+                chunk = userRepo.findUserProjectionsAfterId(cursor, Limit.of(LOAD_CHUNK_SIZE));
+                for (UserProjection user : chunk) {
+                    loaded.upsert(user.getId(), user.getUserName(), user.getAwCrudsPerformed(), user.isDead());
+                    cursor = user.getId();
+                }
+            } while (chunk.size() == LOAD_CHUNK_SIZE);
+
+            lock.writeLock().lock();
+            try {
+                for (UserChangedEvent event : missed) {
+                    apply(loaded, event);
+                }
+                index = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                reloadBuffers.remove(missed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Loaded leaderboard with {} users, {} changed while loading", loaded.size(), missed.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.BULK_CHANGED) {
+            reload();
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            apply(index, event);
+            for (List<UserChangedEvent> buffer : reloadBuffers) {
+                buffer.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(LeaderboardIndex target, UserChangedEvent event) {
+        switch (event.getType()) {
+            case ADDED, UPDATED -> target.upsert(
+                    event.getId(), event.getUserName(), event.getAwCrudsPerformed(), event.isDead());
+            case REMOVED -> {
+                if (event.getUserNames() != null) {
+                    event.getUserNames().forEach(target::removeByName);
+                } else if (event.getUserName() != null) {
+                    target.removeByName(event.getUserName());
+                } else if (event.getId() != null) {
+                    target.removeById(event.getId());
+                }
+            }
+            default -> log.warn("Unhandled user change: {}", event);
+        }
+    }
+
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param count
+     * @return List of the count highest ranked users
+     */
+    public List<LeaderboardEntry> getTop(int count) {
+        lock.readLock().lock();
+        try {
+            return index.range(1, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param userName
+     * @return LeaderboardEntry || null
+     */
+    public LeaderboardEntry getEntry(String userName) {
+        lock.readLock().lock();
+        try {
+            return index.get(userName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param userName
+     * @param radius   number of users to include on each side
+     * @return List of users ranked around userName || Empty List
+     */
+    public List<LeaderboardEntry> getAround(String userName, int radius) {
+        lock.readLock().lock();
+        try {
+            int rank = index.rankOf(userName);
+            if (rank == 0) {
+                return List.of();
+            }
+            return index.range(rank - radius, rank + radius);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Uniformly random living users, drawn by rank among the living so the
+     * cost doesn't depend on how many are dead
+     *
+     * @param count   at most this many
+     * @param exclude left out of the sample, e.g. the spinner || null
+     * @param random
+     * @return distinct names in random order || Empty List
+     */
+    public List<String> sampleAlive(int count, String exclude, RandomGenerator random) {
+        List<String> names;
+        lock.readLock().lock();
+        try {
+            int alive = index.aliveCount();
+            // one spare in case exclude is drawn
+            int drawn = Math.min(alive, count + 1);
+            // Floyd's algorithm, drawn distinct ranks with one draw each
+            Set<Integer> ranks = new HashSet<>();
+            for (int bound = alive - drawn; bound < alive; bound++) {
+                int rank = random.nextInt(bound + 1);
+                ranks.add(ranks.contains(rank) ? bound : rank);
+            }
+            names = new ArrayList<>(drawn);
+            for (int rank : ranks) {
+                String name = index.selectAlive(rank);
+                if (!name.equals(exclude)) {
+                    names.add(name);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // the ranks come out in no random order
+        for (int i = names.size() - 1; i > 0; i--) {
+            Collections.swap(names, i, random.nextInt(i + 1));
+        }
+        return names.size() > count ? names.subList(0, count) : names;
+    }
+}
@@ -0,0 +1,118 @@
+package com.crud_project.crud.service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.crud_project.crud.dvo.WheelSpinResult;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps spin results for the page that shows them, by a random id passed in
+ * its url, instead of a flash attribute in the session. They're kept in the
+ * spin_results table so the page can be served by any instance, expire after
+ * crud.spin-results.expire-seconds and only the user who spun can read theirs
+ */
+@Component
+@Slf4j
+public class SpinResultStore {
+
+    static final String INSERT = """
+            INSERT INTO spin_results (id, user_name, winner_name, participants, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    static final String SELECT = """
+            SELECT winner_name, participants FROM spin_results
+            WHERE id = ? AND user_name = ? AND expires_at > now()
+            """;
+    static final String DELETE_EXPIRED_CHUNK = """
+            DELETE FROM spin_results
+            WHERE id IN (
+                SELECT id FROM spin_results
+                WHERE expires_at < now()
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            """;
+
+    private final JdbcOperations jdbcOperations;
+    private final Duration expiry;
+    private final int cleanupChunkSize;
+
+    public SpinResultStore(
+            JdbcOperations jdbcOperations,
+            @Value("${crud.spin-results.expire-seconds:60}") long expireSeconds,
+            @Value("${crud.spin-results.cleanup-chunk-size:1000}") int cleanupChunkSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.expiry = Duration.ofSeconds(expireSeconds);
+        this.cleanupChunkSize = cleanupChunkSize;
+    }
+
+    /**
+     * @param username who spun
+     * @param result
+     * @return id to get the result by
+     */
+    public String put(String username, WheelSpinResult result) {
+        UUID id = UUID.randomUUID();
+        Timestamp expiresAt = Timestamp.from(Instant.now().plus(expiry));
+        jdbcOperations.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT);
+            statement.setObject(1, id);
+            statement.setString(2, username);
+            statement.setString(3, result.getWinnerName());
+            statement.setArray(4, connection.createArrayOf("text", result.getParticipants().toArray()));
+            statement.setTimestamp(5, expiresAt);
+            return statement;
+        });
+        return id.toString();
+    }
+
+    /**
+     * @param username who is asking
+     * @param id
+     * @return WheelSpinResult || null if expired, unknown or someone else's
+     */
+    public WheelSpinResult get(String username, String id) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        List<WheelSpinResult> results = jdbcOperations.query(SELECT,
+                (rs, rowNum) -> new WheelSpinResult(
+                        rs.getString("winner_name"),
+                        List.of((String[]) rs.getArray("participants").getArray())),
+                uuid, username);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Deletes expired results in chunks, every chunk commits on its own and
+     * rows another instance is deleting are skipped
+     *
+     * @return number of results deleted
+     */
+    @Scheduled(cron = "${crud.spin-results.cleanup-cron:30 * * * * *}")
+    public long deleteExpired() {
+        long deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = jdbcOperations.update(DELETE_EXPIRED_CHUNK, cleanupChunkSize);
+            deleted += chunkDeleted;
+        } while (chunkDeleted == cleanupChunkSize);
+        if (deleted > 0) {
+            log.debug("Deleted {} expired spin results", deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,123 @@
+package com.crud_project.crud.service;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.dvo.WheelSpinResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs wheel spins with the configured crud.spin.conflict-strategy, which
+ * decides what happens when concurrent spins cross the same users. Either
+ * way the spin locks its spinner and re-checks it, so a spinner killed by a
+ * concurrent spin updates nothing.
+ * retry runs each spin in a new transaction again after it loses a race
+ * (deadlock, lock or version conflict), up to max-attempts times with a
+ * random backoff of up to backoff-ms, doubled per attempt.
+ * ordered-lock has the spin lock its winner with the spinner in id order so
+ * crossing spins wait for each other instead of deadlocking, and runs it once.
+ * Retries are counted as wheel.spin.retries
+ */
+@Service
+@Slf4j
+public class SpinWheelExecutor {
+
+    public enum ConflictStrategy {
+        RETRY,
+        ORDERED_LOCK;
+
+        /**
+         * @param property retry || ordered-lock
+         */
+        public static ConflictStrategy fromProperty(String property) {
+            return valueOf(property.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Backoffs stop doubling after this many attempts
+     */
+    private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+    private final UserService userService;
+    private final RandomGenerator random;
+    private final ConflictStrategy strategy;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final Counter retries;
+
+    /**
+     * @param strategy      retry || ordered-lock
+     * @param maxAttempts   spins per request at most with retry
+     * @param backoffMillis upper bound of the first retry's random backoff
+     */
+    public SpinWheelExecutor(UserService userService, RandomGenerator random, MeterRegistry meterRegistry,
+            @Value("${crud.spin.conflict-strategy:ordered-lock}") String strategy,
+            @Value("${crud.spin.max-attempts:3}") int maxAttempts,
+            @Value("${crud.spin.backoff-ms:10}") long backoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("crud.spin.max-attempts must be at least 1, was " + maxAttempts);
+        }
+        this.userService = userService;
+        this.random = random;
+        this.strategy = ConflictStrategy.fromProperty(strategy);
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.retries = Counter.builder("wheel.spin.retries")
+                .description("Wheel spins retried after losing a race with a concurrent spin")
+                .register(meterRegistry);
+    }
+
+    public ConflictStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @param username
+     * @param pageState
+     * @param global    spin against page size random users from everyone
+     *                  instead of the page
+     * @return WheelSpinResult || null || throws ConcurrencyFailureException
+     *         once out of attempts
+     */
+    public WheelSpinResult spin(String username, PageState pageState, boolean global) {
+        boolean lockRows = strategy == ConflictStrategy.ORDERED_LOCK;
+        int attempts = strategy == ConflictStrategy.RETRY ? maxAttempts : 1;
+        for (int attempt = 1;; attempt++) {
+            try {
+                return global
+                        ? userService.spinGlobalWheel(username, pageState.getSize(), lockRows)
+                        : userService.spinWheelAtomic(username, pageState, lockRows);
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                log.debug("Spin by {} lost a race on attempt {}, retrying: {}", username, attempt, e.getMessage());
+                retries.increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    // full jitter, so spins that collided once don't retry in lockstep
+    private void backoff(int attempt, ConcurrencyFailureException cause) {
+        long bound = backoffMillis << Math.min(attempt - 1, MAX_BACKOFF_DOUBLINGS);
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(random.nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.crud_project.crud.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.crud_project.crud.configuration.CacheConfig;
+import com.crud_project.crud.event.UserChangedEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+// Evicts cached user lookups once the transaction that changed them completes.
+// Evicting earlier would let a concurrent read cache the old row again, and
+// evicting on rollback too drops anything cached from the uncommitted change.
+// Runs before UserChangeVersion moves on, see UserChangeChannel
+public class UserCacheInvalidator {
+
+    private static final String[] USER_CACHES = { CacheConfig.USER_PROJECTIONS, CacheConfig.USER_DEAD };
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onUserChanged(UserChangedEvent event) {
+        for (String cacheName : USER_CACHES) {
+            invalidate(cacheName, event);
+        }
+        // credentials only go stale through deletes and password changes, game
+        // updates leave them cached
+        if (event.isCredentialsChanged()) {
+            invalidate(CacheConfig.USER_DETAILS, event);
+        }
+        log.debug("Invalidated cached users for {}", event);
+    }
+
+    private void invalidate(String cacheName, UserChangedEvent event) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        // bulk changes don't say which names changed
+        if (event.getType() == UserChangedEvent.Type.BULK_CHANGED) {
+            cache.clear();
+        } else if (event.getUserNames() != null) {
+            event.getUserNames().forEach(cache::evict);
+        } else if (event.getUserName() != null) {
+            cache.evict(event.getUserName());
+        } else {
+            cache.clear();
+        }
+    }
+}
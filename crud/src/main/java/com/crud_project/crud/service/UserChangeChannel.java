@@ -0,0 +1,556 @@
+package com.crud_project.crud.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.crud_project.crud.event.UserChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Sends the UserChangedEvents of every transaction that changes users, once
+ * it committed, to every instance with a Postgres NOTIFY on the user_changes
+ * channel. The commit only queues them: a sender thread on a connection of
+ * its own takes whatever queued up meanwhile, numbers it from the
+ * user_change_version sequence and sends it as few notifications as it fits
+ * in, so spins neither run another statement nor take the notify queue lock.
+ * Each notification is kept in user_change_log for retention-minutes too.
+ * Each instance LISTENs on another connection and, in order, publishes other
+ * instances' events again locally (outside a transaction, so the cache
+ * invalidation, leaderboard and /crud/events listeners run straight away)
+ * before handing the number to UserChangeVersion. After losing that
+ * connection it catches up from the log, only reloading everything when what
+ * it missed was deleted already. Started before the web server so no request
+ * is tagged before the first sync
+ */
+@Component
+@Slf4j
+public class UserChangeChannel implements SmartLifecycle {
+
+    public static final String CHANNEL = "user_changes";
+
+    // the payload is [version, origin, own, events], see decode for an event
+    static final String SEND = """
+            WITH logged AS (
+                INSERT INTO user_change_log (version, origin, own_change, events)
+                VALUES (nextval('user_change_version'), ?, ?, ?::json)
+                RETURNING version, origin, own_change, events)
+            SELECT pg_notify(?, json_build_array(version, origin, own_change, events)::text) FROM logged
+            """;
+    static final String LAST_VERSION = """
+            SELECT coalesce(max(version), 0) FROM user_change_log
+            """;
+    // deleting only ever takes the oldest versions, so the log holds every
+    // change since the first one it still has
+    static final String CATCH_UP = """
+            SELECT version, origin, own_change, events::text,
+                (SELECT min(version) FROM user_change_log) AS first_kept
+            FROM user_change_log
+            WHERE version > ?
+            ORDER BY version
+            """;
+    static final String DELETE_OLD_CHUNK = """
+            DELETE FROM user_change_log
+            WHERE version IN (
+                SELECT version FROM user_change_log
+                WHERE version <= (SELECT max(version) FROM user_change_log WHERE created_at < ?)
+                    AND version < (SELECT max(version) FROM user_change_log)
+                ORDER BY version
+                LIMIT ?)
+            """;
+    private static final int POLL_MILLIS = 10_000;
+    // pg_notify takes payloads under 8000 bytes, less the version, origin and own
+    private static final int MAX_EVENTS_LENGTH = 7800;
+    private static final Pending STOP = new Pending(0, List.of());
+
+    /**
+     * A committed transaction's events waiting to be sent
+     */
+    private record Pending(long ownChange, List<UserChangedEvent> events) {
+    }
+
+    private final JdbcOperations jdbcOperations;
+    private final UserChangeVersion userChangeVersion;
+    private final JdbcConnectionDetails connectionDetails;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonMapper jsonMapper;
+    private final long reconnectMillis;
+    private final Duration retention;
+    private final int cleanupChunkSize;
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final BlockingQueue<Pending> outbox = new LinkedBlockingQueue<>();
+    private volatile long ownSent;
+    // the listener thread's, once started
+    private long lastVersion;
+    private final Set<Long> caughtUp = new HashSet<>();
+    private volatile boolean running;
+    private volatile Connection connection;
+    private volatile Thread listener;
+    private volatile Thread sender;
+
+    public UserChangeChannel(
+            UserChangeVersion userChangeVersion,
+            JdbcConnectionDetails connectionDetails,
+            ApplicationEventPublisher eventPublisher,
+            JsonMapper jsonMapper,
+            JdbcOperations jdbcOperations,
+            @Value("${crud.user-changes.reconnect-ms:1000}") long reconnectMillis,
+            @Value("${crud.user-changes.retention-minutes:60}") long retentionMinutes,
+            @Value("${crud.user-changes.cleanup-chunk-size:1000}") int cleanupChunkSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.userChangeVersion = userChangeVersion;
+        this.connectionDetails = connectionDetails;
+        this.eventPublisher = eventPublisher;
+        this.jsonMapper = jsonMapper;
+        this.reconnectMillis = reconnectMillis;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        this.cleanupChunkSize = cleanupChunkSize;
+    }
+
+    /**
+     * Once per transaction, after its other synchronizations so the caches
+     * were invalidated before the version moves on. Changes published outside
+     * a transaction are committed already and queued straight away. Other
+     * instances' events published again by the listener aren't sent back
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @SuppressWarnings("unchecked")
+    public void onUserChanged(UserChangedEvent event) {
+        if (Thread.currentThread() == listener) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed(List.of(event));
+            return;
+        }
+        List<UserChangedEvent> events = (List<UserChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (events == null) {
+            events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionNotifier(events));
+        }
+        events.add(event);
+    }
+
+    /**
+     * Queues a transaction's events once it committed
+     */
+    private final class TransactionNotifier implements TransactionSynchronization {
+
+        private final List<UserChangedEvent> events;
+
+        private TransactionNotifier(List<UserChangedEvent> events) {
+            this.events = events;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(UserChangeChannel.this);
+            if (status == STATUS_COMMITTED) {
+                committed(events);
+            } else {
+                userChangeVersion.rolledBack();
+            }
+        }
+    }
+
+    /**
+     * Numbered and queued together, so they're sent in the order of the
+     * numbers
+     */
+    private void committed(List<UserChangedEvent> events) {
+        synchronized (outbox) {
+            outbox.add(new Pending(userChangeVersion.committed(), events));
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            connection = listen();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not listen for user changes", e);
+        }
+        running = true;
+        listener = new Thread(this::receive, "user-changes");
+        listener.setDaemon(true);
+        listener.start();
+        sender = new Thread(this::send, "user-changes-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // sends what's queued before it, closes the sender's connection
+        outbox.add(STOP);
+        // closing would wait for the poll holding the connection
+        Connection listening = connection;
+        if (listening != null) {
+            try {
+                listening.abort(Runnable::run);
+            } catch (SQLException e) {
+                log.debug("Aborting the user changes connection: {}", e.getMessage());
+            }
+        }
+        try {
+            sender.join(POLL_MILLIS);
+            listener.join(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WebServerApplicationContext.START_STOP_LIFECYCLE_PHASE - 1;
+    }
+
+    /**
+     * LISTENs before reading the log, so no change logged after it is
+     * missed. On the listener thread it delivers the changes logged while it
+     * wasn't listening, on the first listen there's nothing loaded to miss
+     * them
+     *
+     * @return Connection listening on CHANNEL
+     */
+    private Connection listen() throws SQLException {
+        Connection listening = connect();
+        try (Statement statement = listening.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+            if (Thread.currentThread() != listener || !catchUp(listening)) {
+                try (ResultSet last = statement.executeQuery(LAST_VERSION)) {
+                    last.next();
+                    lastVersion = Math.max(lastVersion, last.getLong(1));
+                }
+            }
+            userChangeVersion.synced(lastVersion, ownSent);
+        } catch (SQLException e) {
+            close(listening);
+            throw e;
+        }
+        return listening;
+    }
+
+    /**
+     * Delivers the logged changes after the last one delivered, their
+     * notifications may still arrive and are skipped then
+     *
+     * @return false if some were deleted already and everything was reloaded
+     *         instead
+     */
+    private boolean catchUp(Connection listening) throws SQLException {
+        caughtUp.clear();
+        try (PreparedStatement statement = listening.prepareStatement(CATCH_UP)) {
+            statement.setLong(1, lastVersion);
+            try (ResultSet changes = statement.executeQuery()) {
+                while (changes.next()) {
+                    if (caughtUp.isEmpty() && changes.getLong("first_kept") > lastVersion + 1) {
+                        log.warn("User changes after {} were deleted while not listening, reloading", lastVersion);
+                        eventPublisher.publishEvent(UserChangedEvent.bulkChanged());
+                        return false;
+                    }
+                    long version = changes.getLong("version");
+                    caughtUp.add(version);
+                    try {
+                        deliver(version, changes.getString("origin"), changes.getLong("own_change"),
+                                jsonMapper.readTree(changes.getString("events")));
+                    } catch (RuntimeException e) {
+                        log.error("Failed to apply user changes {}", changes.getString("events"), e);
+                    }
+                }
+            }
+        }
+        log.info("Caught up on {} user changes", caughtUp.size());
+        return true;
+    }
+
+    /**
+     * Takes what queued up while the last notification was sent and sends
+     * it on, keeping it to retry after reconnecting when sending fails
+     */
+    private void send() {
+        List<Pending> batch = new ArrayList<>();
+        Connection sending = null;
+        boolean stopping = false;
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(outbox.take());
+                }
+                outbox.drainTo(batch);
+                stopping |= batch.removeIf(pending -> pending == STOP);
+                if (!batch.isEmpty()) {
+                    if (sending == null) {
+                        sending = connect();
+                    }
+                    sendAll(sending, batch);
+                }
+                if (stopping) {
+                    close(sending);
+                    return;
+                }
+            } catch (SQLException e) {
+                close(sending);
+                sending = null;
+                if (stopping || !running) {
+                    log.warn("Could not send {} user changes while stopping: {}", batch.size(), e.getMessage());
+                    return;
+                }
+                log.warn("Could not send user changes, retrying: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                close(sending);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends as few notifications as the events fit in, taking every
+     * transaction fully sent off the batch
+     */
+    private void sendAll(Connection sending, List<Pending> batch) throws SQLException {
+        StringJoiner events = new StringJoiner(",", "[", "]");
+        int length = 2;
+        int sent = 0;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                for (UserChangedEvent event : batch.get(i).events()) {
+                    for (String json : encode(event)) {
+                        int eventLength = json.getBytes(StandardCharsets.UTF_8).length + 1;
+                        if (length > 2 && length + eventLength > MAX_EVENTS_LENGTH) {
+                            // the transactions before this one are in it
+                            notifyChange(sending, events.toString(),
+                                    i > 0 ? batch.get(i - 1).ownChange() : ownSent);
+                            sent = i;
+                            events = new StringJoiner(",", "[", "]");
+                            length = 2;
+                        }
+                        events.add(json);
+                        length += eventLength;
+                    }
+                }
+            }
+            notifyChange(sending, events.toString(), batch.get(batch.size() - 1).ownChange());
+            sent = batch.size();
+        } finally {
+            batch.subList(0, sent).clear();
+        }
+    }
+
+    /**
+     * An event as [type, id, userName, awCrudsPerformed, dead,
+     * credentialsChanged(, userNames)], a REMOVED of more users than fit in
+     * a notification is split into several
+     *
+     * @return List of the event's JSON
+     */
+    private List<String> encode(UserChangedEvent event) {
+        List<Object> fields = new ArrayList<>(Arrays.asList(event.getType().name(), event.getId(),
+                event.getUserName(), event.getAwCrudsPerformed(), event.isDead(), event.isCredentialsChanged()));
+        List<String> userNames = event.getUserNames();
+        if (userNames != null) {
+            fields.add(userNames);
+        }
+        String json = jsonMapper.writeValueAsString(fields);
+        if (json.getBytes(StandardCharsets.UTF_8).length + 3 <= MAX_EVENTS_LENGTH) {
+            return List.of(json);
+        }
+        if (userNames == null || userNames.size() < 2) {
+            // names are at most 255 characters, this can't fit anything else
+            return encode(UserChangedEvent.bulkChanged());
+        }
+        int half = userNames.size() / 2;
+        List<String> split = new ArrayList<>(encode(UserChangedEvent.removed(userNames.subList(0, half))));
+        split.addAll(encode(UserChangedEvent.removed(userNames.subList(half, userNames.size()))));
+        return split;
+    }
+
+    private static UserChangedEvent decode(JsonNode event) {
+        JsonNode userNames = event.get(6);
+        return new UserChangedEvent(
+                UserChangedEvent.Type.valueOf(event.get(0).asString()),
+                event.get(1).isNull() ? null : event.get(1).asInt(),
+                event.get(2).isNull() ? null : event.get(2).asString(),
+                event.get(3).asInt(),
+                event.get(4).asBoolean(),
+                event.get(5).asBoolean(),
+                userNames == null ? null : userNames.valueStream().map(JsonNode::asString).toList());
+    }
+
+    private void notifyChange(Connection sending, String events, long ownChange) throws SQLException {
+        try (PreparedStatement statement = sending.prepareStatement(SEND)) {
+            statement.setString(1, instanceId);
+            statement.setLong(2, ownChange);
+            statement.setString(3, events);
+            statement.setString(4, CHANNEL);
+            statement.executeQuery().close();
+        }
+        ownSent = ownChange;
+    }
+
+    /**
+     * Deletes changes older than retention-minutes in chunks, always keeping
+     * the last one so a listener that delivered it knows it missed nothing
+     *
+     * @return number of changes deleted
+     */
+    @Scheduled(cron = "${crud.user-changes.cleanup-cron:15 */5 * * * *}")
+    public long deleteOldChanges() {
+        Timestamp before = Timestamp.from(Instant.now().minus(retention));
+        long deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = jdbcOperations.update(DELETE_OLD_CHUNK, before, cleanupChunkSize);
+            deleted += chunkDeleted;
+        } while (chunkDeleted == cleanupChunkSize);
+        if (deleted > 0) {
+            log.debug("Deleted {} old user changes", deleted);
+        }
+        return deleted;
+    }
+
+    private void receive() {
+        while (running) {
+            try {
+                if (connection == null) {
+                    connection = listen();
+                    log.info("Listening for user changes again");
+                }
+                PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(POLL_MILLIS);
+                if (notifications == null) {
+                    continue;
+                }
+                for (PGNotification notification : notifications) {
+                    try {
+                        receive(notification.getParameter());
+                    } catch (RuntimeException e) {
+                        // a failing listener mustn't stop the rest
+                        log.error("Failed to apply user changes {}", notification.getParameter(), e);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the user changes connection, reconnecting: {}", e.getMessage());
+                close(connection);
+                connection = null;
+                try {
+                    Thread.sleep(reconnectMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        JsonNode notification;
+        try {
+            notification = jsonMapper.readTree(payload);
+        } catch (JacksonException e) {
+            log.warn("Unreadable user change notification, reloading: {}", e.getMessage());
+            eventPublisher.publishEvent(UserChangedEvent.bulkChanged());
+            userChangeVersion.rolledBack();
+            return;
+        }
+        long version = notification.get(0).asLong();
+        if (!caughtUp.remove(version)) {
+            deliver(version, notification.get(1).asString(), notification.get(2).asLong(), notification.get(3));
+        }
+    }
+
+    private void deliver(long version, String origin, long ownChange, JsonNode events) {
+        lastVersion = Math.max(lastVersion, version);
+        if (instanceId.equals(origin)) {
+            userChangeVersion.deliveredOwn(version, ownChange);
+            return;
+        }
+        for (JsonNode event : events.values()) {
+            eventPublisher.publishEvent(decode(event));
+        }
+        userChangeVersion.delivered(version);
+    }
+
+    /**
+     * @return Connection named after the thread using it in pg_stat_activity
+     */
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        if (connectionDetails.getUsername() != null) {
+            properties.setProperty("user", connectionDetails.getUsername());
+        }
+        if (connectionDetails.getPassword() != null) {
+            properties.setProperty("password", connectionDetails.getPassword());
+        }
+        String name = Thread.currentThread() == sender ? "user-changes-sender" : "user-changes";
+        properties.setProperty("ApplicationName", name);
+        return DriverManager.getConnection(connectionDetails.getJdbcUrl(), properties);
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Closing the user changes connection: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.crud_project.crud.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Tags user changes so API responses can be tagged without querying
+ * anything: while the tag is unchanged no user is either, and a conditional
+ * GET can be answered 304 straight away.
+ *
+ * Every instance numbers its committed changes in order, and
+ * UserChangeChannel sends them on to every instance once committed, each
+ * notification numbered from the user_change_version sequence. Notifications
+ * arrive in that order, so an instance that has seen version n (and none of
+ * its own changes are still on their way) has seen every change notified
+ * before it, and tags alike as every other instance there. Anything else
+ * (its own commits until they come back, rollbacks, numbers arriving out of
+ * order, reconnects) moves it to a tag only this instance and boot uses,
+ * which costs clients a full response but never serves them a stale one
+ */
+@Component
+public class UserChangeVersion {
+
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private long ownCommitted;
+    private long ownDelivered;
+    private long lastDelivered;
+    private volatile long version;
+    private volatile String tag = instanceId + ".0";
+
+    /**
+     * This instance committed a change, it's seen before its notification is
+     *
+     * @return the change's number among this instance's own, notifications
+     *         say up to which one they carry
+     */
+    public synchronized long committed() {
+        moveTo(null);
+        return ++ownCommitted;
+    }
+
+    /**
+     * Caches may hold rows read in the rolled back transaction
+     */
+    public synchronized void rolledBack() {
+        moveTo(null);
+    }
+
+    /**
+     * A notification of another instance's change number changeVersion
+     * arrived, caches were already told about it
+     */
+    public synchronized void delivered(long changeVersion) {
+        boolean shareable = changeVersion > lastDelivered && ownDelivered == ownCommitted;
+        lastDelivered = Math.max(lastDelivered, changeVersion);
+        moveTo(shareable ? changeVersion : null);
+    }
+
+    /**
+     * A notification of this instance's own changes up to ownChange (see
+     * committed) arrived as number changeVersion
+     */
+    public synchronized void deliveredOwn(long changeVersion, long ownChange) {
+        ownDelivered = Math.max(ownDelivered, ownChange);
+        delivered(changeVersion);
+    }
+
+    /**
+     * (Re)started listening, changes up to lastVersion were notified before
+     * and may never arrive, nor may this instance's own up to ownSent
+     */
+    public synchronized void synced(long lastVersion, long ownSent) {
+        ownDelivered = Math.max(ownDelivered, ownSent);
+        lastDelivered = Math.max(lastDelivered, lastVersion);
+        moveTo(null);
+    }
+
+    /**
+     * @return number of times the tag moved on this instance, to key local
+     *         caches by
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Read it before running the queries it tags, so a change committed in
+     * between makes the tag stale rather than the response
+     *
+     * @param parts anything else the response depends on, e.g. the user name
+     * @return strong ETag of the current version, quoted
+     */
+    public String etag(Object... parts) {
+        StringBuilder etag = new StringBuilder("\"").append(tag);
+        for (Object part : parts) {
+            etag.append('-').append(Integer.toHexString(String.valueOf(part).hashCode()));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * @param changeVersion the shared version to move to || null for one
+     *                      only this instance uses
+     */
+    private void moveTo(Long changeVersion) {
+        long moved = version + 1;
+        tag = changeVersion != null ? Long.toString(changeVersion) : instanceId + "." + moved;
+        version = moved;
+    }
+}
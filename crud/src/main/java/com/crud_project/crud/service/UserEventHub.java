@@ -0,0 +1,205 @@
+package com.crud_project.crud.service;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.crud_project.crud.dvo.UserDelta;
+import com.crud_project.crud.event.UserChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Fans committed UserChangedEvents out to every /crud/events subscriber as
+ * UserDelta JSON over server sent events. Each change is serialized once and
+ * queued on every subscriber's bounded buffer, a shared pool does the
+ * sending, so idle subscribers hold no thread and a slow one can't hold up
+ * the rest: a subscriber whose buffer is full is dropped, its EventSource
+ * reconnects and reloads. Subscribers are the user.events.clients gauge,
+ * dropped ones user.events.evicted
+ */
+@Slf4j
+public class UserEventHub implements AutoCloseable {
+
+    public static final String EVENT_NAME = "user";
+
+    private final JsonMapper jsonMapper;
+    private final ScheduledExecutorService sender;
+    private final int bufferCapacity;
+    private final int maxClients;
+    private final long timeoutMillis;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger clientCount = new AtomicInteger();
+    private final Counter evictions;
+
+    private static final class Client {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> buffer;
+        // a drain is queued or running, at most one per client at a time
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Client(SseEmitter emitter, int bufferCapacity) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        }
+    }
+
+    /**
+     * @param jsonMapper
+     * @param sender          pool sending to subscribers, shut down on close
+     * @param bufferCapacity  events a subscriber may fall behind by before it's
+     *                        dropped
+     * @param maxClients      subscribers at most, more are turned away
+     * @param timeoutMillis   subscriptions end after this long, 0 means never
+     * @param heartbeatMillis comment sent to idle subscribers this often so
+     *                        dead connections are noticed, 0 means never
+     * @param meterRegistry
+     */
+    public UserEventHub(JsonMapper jsonMapper, ScheduledExecutorService sender, int bufferCapacity, int maxClients,
+            long timeoutMillis, long heartbeatMillis, MeterRegistry meterRegistry) {
+        this.jsonMapper = jsonMapper;
+        this.sender = sender;
+        this.bufferCapacity = bufferCapacity;
+        this.maxClients = maxClients;
+        this.timeoutMillis = timeoutMillis;
+        Gauge.builder("user.events.clients", clientCount, AtomicInteger::get)
+                .description("Subscribers to live user changes")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("user.events.evicted")
+                .description("Subscribers dropped for falling too far behind")
+                .register(meterRegistry);
+        if (heartbeatMillis > 0) {
+            sender.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return SseEmitter receiving every change from now on || null if there
+     *         are maxClients subscribers already
+     */
+    public SseEmitter subscribe() {
+        if (clientCount.incrementAndGet() > maxClients) {
+            clientCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Client client = new Client(emitter, bufferCapacity);
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> remove(client));
+        emitter.onError(e -> remove(client));
+        clients.add(client);
+        return emitter;
+    }
+
+    public int getClientCount() {
+        return clientCount.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        String json = jsonMapper.writeValueAsString(UserDelta.of(event));
+        Set<DataWithMediaType> frame = SseEmitter.event().name(EVENT_NAME).data(json).build();
+        for (Client client : clients) {
+            if (client.buffer.offer(frame)) {
+                schedule(client);
+            } else {
+                evict(client);
+            }
+        }
+    }
+
+    /**
+     * Sends a comment to subscribers with nothing queued, a failed send drops
+     * the subscriber
+     */
+    public void heartbeat() {
+        Set<DataWithMediaType> frame = SseEmitter.event().comment("").build();
+        for (Client client : clients) {
+            if (client.buffer.isEmpty() && client.buffer.offer(frame)) {
+                schedule(client);
+            }
+        }
+    }
+
+    private void schedule(Client client) {
+        if (!client.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> drain(client));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            client.scheduled.set(false);
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            Set<DataWithMediaType> frame;
+            while ((frame = client.buffer.poll()) != null) {
+                client.emitter.send(frame);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // disconnected or completed, the container completes the emitter
+            log.debug("Dropping user event subscriber: {}", e.getMessage());
+            remove(client);
+            client.buffer.clear();
+        } finally {
+            client.scheduled.set(false);
+        }
+        // anything queued after the last poll but before the flag was cleared
+        if (!client.buffer.isEmpty() && clients.contains(client)) {
+            schedule(client);
+        }
+    }
+
+    private void evict(Client client) {
+        if (!remove(client)) {
+            return;
+        }
+        evictions.increment();
+        client.buffer.clear();
+        // completing waits for a send in progress, which is what's slow
+        try {
+            sender.execute(client.emitter::complete);
+        } catch (RejectedExecutionException e) {
+            client.emitter.complete();
+        }
+    }
+
+    private boolean remove(Client client) {
+        if (clients.remove(client)) {
+            clientCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        sender.shutdownNow();
+        for (Client client : clients) {
+            remove(client);
+            client.emitter.complete();
+        }
+    }
+}
@@ -1,24 +1,38 @@
 package com.crud_project.crud.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.random.RandomGenerator;
 
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.crud_project.crud.configuration.CacheConfig;
+import com.crud_project.crud.dvo.KeysetSlice;
 import com.crud_project.crud.dvo.PageState;
 import com.crud_project.crud.dvo.WheelSpinResult;
 import com.crud_project.crud.entity.User;
+import com.crud_project.crud.event.UserChangedEvent;
 import com.crud_project.crud.repository.UserProjection;
 import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.repository.WheelSpinOutcome;
+import com.crud_project.crud.repository.impl.UserProjectionImpl;
+import com.crud_project.crud.security.PasswordHashingRejectedException;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -33,7 +47,9 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepo userRepo;
     private final ResourceHandler resourceHandler;
-    private final Random random;
+    private final RandomGenerator random;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LeaderboardService leaderboardService;
 
     public List<User> getAllUsers() {
         return userRepo.findAll();
@@ -68,7 +84,12 @@ public class UserService {
                 userRepo.existsByUserName(user.getUserName())) {
             return null;
         }
+        return saveNewUser(user);
+    }
+
+    private User saveNewUser(User user) {
         User savedUser = userRepo.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.added(savedUser));
         return savedUser;
     }
 
@@ -77,31 +98,81 @@ public class UserService {
         if (user == null || userRepo.existsById(user.getId()) == false) {
             return null;
         }
-        return userRepo.save(user);
+        User savedUser = userRepo.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.updated(savedUser));
+        return savedUser;
     }
 
     public boolean deleteUserById(int id) {
-        userRepo.deleteById(id);
-        if (getUserById(id) == null) {
-            return true;
+        String userName = userRepo.deleteUserById(id);
+        if (userName == null) {
+            log.warn("User was not deleted");
+            return false;
         }
-        log.warn("User was not deleted");
-        return false;
+        eventPublisher.publishEvent(UserChangedEvent.removed(id, userName));
+        return true;
     }
 
     /**
+     * Number of rows each bulk delete statement removes at most, every chunk
+     * commits on its own so locks are held briefly
+     */
+    public static final int DELETE_CHUNK_SIZE = 5000;
+
+    /**
+     * A page of projections without counting every user
      *
-     * @param page
-     * @param size
-     * @return Page<UserProjection> || Empty Page
+     * @param pageState
+     * @return Slice of UserProjection || null
      */
-    public Page<UserProjection> getUserProjectionsByPageState(PageState pageState) {
+    public Slice<UserProjection> getUserProjectionSliceByPageState(PageState pageState) {
         if (pageState == null) {
             return null;
         }
-        Page<UserProjection> projections = userRepo
-                .findAllUserProjectionBy(PageRequest.of(pageState.getPage(), pageState.getSize()));
-        return projections;
+        return userRepo.findUserProjectionSliceBy(PageRequest.of(pageState.getPage(), pageState.getSize()));
+    }
+
+    /**
+     * Reads the page of projections on the requested side of the pageState's
+     * cursor. One extra row is read to know if there is more in that direction
+     *
+     * @param pageState
+     * @return KeysetSlice of UserProjection || null
+     */
+    public KeysetSlice<UserProjection> getUserProjectionsByKeyset(PageState pageState) {
+        if (pageState == null || !pageState.isKeyset()) {
+            return null;
+        }
+        int size = pageState.getSize();
+
+        if (pageState.getDirection() == PageState.Direction.BEFORE) {
+            List<UserProjection> projections = new ArrayList<>(
+                    userRepo.findUserProjectionsBeforeIdWithNext(pageState.getCursor(), size + 1));
+            // the row at or after the cursor only says there is a next page
+            boolean hasNext = !projections.isEmpty() && projections.get(0).getId() >= pageState.getCursor();
+            if (hasNext) {
+                projections.remove(0);
+            }
+            boolean hasPrevious = projections.size() > size;
+            if (hasPrevious) {
+                projections.remove(size);
+            }
+            Collections.reverse(projections);
+            return new KeysetSlice<>(projections, size, hasNext, hasPrevious);
+        }
+
+        List<UserProjection> projections = new ArrayList<>(
+                userRepo.findUserProjectionsAfterIdWithPrevious(pageState.getCursor(), size + 1));
+        // the row at or before the cursor only says there is a previous page
+        boolean hasPrevious = !projections.isEmpty() && projections.get(0).getId() <= pageState.getCursor();
+        if (hasPrevious) {
+            projections.remove(0);
+        }
+        boolean hasNext = projections.size() > size;
+        if (hasNext) {
+            projections.remove(size);
+        }
+        return new KeysetSlice<>(projections, size, hasNext, hasPrevious);
     }
 
     /**
@@ -114,34 +185,27 @@ public class UserService {
     }
 
     /**
+     * Cached by username until the user changes, see UserCacheInvalidator
      *
      * @param username
      * @return UserProjectionImpl || null
      */
+    @Cacheable(cacheNames = CacheConfig.USER_PROJECTIONS, unless = "#result == null")
     public UserProjection getUserProjectionByName(String username) {
         Optional<UserProjection> optionalUserProjection = userRepo.findUserProjectionByUserName(username);
         if (optionalUserProjection.isPresent()) {
-            return optionalUserProjection.get();
+            return UserProjectionImpl.from(optionalUserProjection.get());
         }
         return null;
     }
 
     /**
-     * @param page
-     * @param size
-     * @return Page of String || Empty Page of String
-     */
-    public Page<String> getUserNamesByPageState(PageState pageState) {
-        if (pageState == null) {
-            return Page.empty();
-        }
-        return userRepo.findAllUserNames(PageRequest.of(pageState.getPage(), pageState.getSize()));
-    }
-
-    /**
+     * Cached by username until the user changes, see UserCacheInvalidator
+     *
      * @param username
      * @return boolean || null
      */
+    @Cacheable(cacheNames = CacheConfig.USER_DEAD, unless = "#result == null")
     public Boolean getDeadByName(String username) {
         Optional<Boolean> optionalIsDead = userRepo.findDeadByUserName(username);
         if (optionalIsDead.isPresent()) {
@@ -151,19 +215,28 @@ public class UserService {
     }
 
     /**
+     * Deletes every user in chunks of DELETE_CHUNK_SIZE without loading them
      *
-     * @return boolean
+     * @return number of users deleted, if a chunk fails only the earlier
+     *         chunks stay deleted
      */
-    public boolean deleteAllUsers() {
+    public long deleteAllUsers() {
+        long deleted = 0;
         try {
-            userRepo.deleteAll();
-            log.info("Deleted all users");
-            return true;
+            int chunkDeleted;
+            do {
+                chunkDeleted = userRepo.deleteChunk(DELETE_CHUNK_SIZE);
+                deleted += chunkDeleted;
+            } while (chunkDeleted == DELETE_CHUNK_SIZE);
+            log.info("Deleted all users ({})", deleted);
 
         } catch (Exception e) {
-            log.error("Error deleting all users: {}", e.getMessage());
-            return false;
+            log.error("Error deleting all users after {} deleted: {}", deleted, e.getMessage());
+        }
+        if (deleted > 0) {
+            eventPublisher.publishEvent(UserChangedEvent.bulkChanged());
         }
+        return deleted;
     }
 
     /**
@@ -175,18 +248,26 @@ public class UserService {
      */
     public User registerUser(String username, String password) {
         log.debug("Attempting to register user: {}", username);
-        if (getUserByName(username) != null) {
+        // an exists check is all it needs, loading the user would be wasted
+        if (username == null || userRepo.existsByUserName(username)) {
             log.warn("User {} already exists", username);
             return null;
         }
         // Hash password and save user
-        String hashedPassword = passwordEncoder.encode(password);
+        String hashedPassword;
+        try {
+            hashedPassword = passwordEncoder.encode(password);
+        } catch (PasswordHashingRejectedException e) {
+            log.warn("Could not hash password for {}: {}", username, e.getMessage());
+            return null;
+        }
 
         User user = new User();
         user.setUserName(username);
         user.setHashedPassword(hashedPassword);
 
-        User createdUser = createUser(user);
+        // already checked, don't check again
+        User createdUser = saveNewUser(user);
         log.info("User created: {}", createdUser);
         return createdUser;
     }
@@ -195,138 +276,279 @@ public class UserService {
     private static final int RNG_MAX_CRUDS = 100;
 
     /**
-     * @return a Set of the id's associated with the created users
+     * Creates many users at once. Existing names are found with one query and
+     * the rest are inserted through JDBC batches, ids come from the pooled
+     * sequence so there is no round trip per row. Names repeated within users
+     * are only created once
+     *
+     * @param users new users without ids
+     * @return List of the created users (with ids) || Empty List
      */
     @Transactional
-    public Set<Integer> createTestUsers() {
-        List<String> unmodifiableUsernames = resourceHandler.getTestUserDbUsernames();
-        if (unmodifiableUsernames == null) {
+    public List<User> createUsersInBulk(Collection<User> users) {
+        if (users == null || users.isEmpty()) {
+            return List.of();
+        }
+        Map<String, User> usersByName = new LinkedHashMap<>();
+        for (User user : users) {
+            if (user != null && user.getUserName() != null) {
+                usersByName.putIfAbsent(user.getUserName(), user);
+            }
+        }
+        if (usersByName.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> existing = userRepo.findExistingUserNames(usersByName.keySet().toArray(String[]::new));
+        usersByName.keySet().removeAll(existing);
+
+        List<User> newUsers = new ArrayList<>(usersByName.values());
+        if (newUsers.isEmpty()) {
+            return List.of();
+        }
+        userRepo.persistInBatches(newUsers);
+        eventPublisher.publishEvent(UserChangedEvent.bulkChanged());
+        log.info("Created {} users in bulk, skipped {} existing", newUsers.size(), existing.size());
+        return newUsers;
+    }
+
+    /**
+     * Upper bound for one "create test users" request
+     */
+    public static final int MAX_TEST_USERS = 1_000_000;
+
+    // 0 means one test user per bundled name
+    @Value("${crud.test-users.count:0}")
+    private int testUserCount;
+
+    /**
+     * Test user names, the bundled names first and then the bundled names
+     * again with a round number appended (EscapeFromTyping1, ...) until count
+     * is reached. Always the same names for the same count, so test users can
+     * be found again to delete them
+     *
+     * @param count 0 or less for the configured count
+     * @return List of test user names || null
+     */
+    public List<String> getTestUserNames(int count) {
+        List<String> baseNames = resourceHandler.getTestUserDbUsernames();
+        if (baseNames == null || baseNames.isEmpty()) {
             return null;
         }
+        if (count <= 0) {
+            count = testUserCount > 0 ? testUserCount : baseNames.size();
+        }
+        count = Math.min(count, MAX_TEST_USERS);
 
-        List<String> usernames = new ArrayList<>(unmodifiableUsernames); // make list mutable
-        if (usernames.isEmpty()) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String baseName = baseNames.get(i % baseNames.size()).trim();
+            int round = i / baseNames.size();
+            names.add(round == 0 ? baseName : baseName + round);
+        }
+        return names;
+    }
+
+    /**
+     * @return a Set of the id's associated with the created users
+     */
+    public Set<Integer> createTestUsers() {
+        return createTestUsers(0);
+    }
+
+    /**
+     * @param count 0 or less for the configured count
+     * @return a Set of the id's associated with the created users || null if
+     *         there are no test user names or the password couldn't be hashed
+     */
+    @Transactional
+    public Set<Integer> createTestUsers(int count) {
+        List<String> usernames = getTestUserNames(count);
+        if (usernames == null) {
             return null;
         }
         Collections.shuffle(usernames);
 
         String password = resourceHandler.getTestUserDbPasswords().get(0);
-        String hashedPassword = passwordEncoder.encode(password);
+        String hashedPassword;
+        try {
+            hashedPassword = passwordEncoder.encode(password);
+        } catch (PasswordHashingRejectedException e) {
+            log.warn("Could not hash the test user password: {}", e.getMessage());
+            return null;
+        }
 
-        Set<Integer> createdUsers = new HashSet<>();
+        List<User> users = new ArrayList<>(usernames.size());
         for (String username : usernames) {
 
             User user = new User();
             user.setUserName(username);
             user.setHashedPassword(hashedPassword);
             user.setAwCrudsPerformed(random.nextInt(RNG_MIN_CRUDS, RNG_MAX_CRUDS));
-
-            createdUsers.add(createUser(user).getId());
+            users.add(user);
         }
 
-        log.info("Created test users");
+        Set<Integer> createdUsers = new HashSet<>();
+        for (User user : createUsersInBulk(users)) {
+            createdUsers.add(user.getId());
+        }
+        log.info("Created {} test users", createdUsers.size());
         return createdUsers;
     }
 
     /**
-     * @return boolean
+     * @return number of test users deleted
      */
-    @Transactional
-    public boolean deleteTestUsers() {
-        List<String> usernames = resourceHandler.getTestUserDbUsernames();
-        if (usernames == null) {
-            log.warn("Test usernames file not found");
-            return false;
-        }
+    public long deleteTestUsers() {
+        return deleteTestUsers(0);
+    }
 
-        if (usernames.isEmpty()) {
-            log.warn("Test usernames file has no usernames");
-            return false;
+    /**
+     * Deletes test users by name, DELETE_CHUNK_SIZE names per statement
+     *
+     * @param count 0 or less for the configured count
+     * @return number of test users deleted
+     */
+    public long deleteTestUsers(int count) {
+        List<String> usernames = getTestUserNames(count);
+        if (usernames == null) {
+            log.warn("Test usernames file not found or empty");
+            return 0;
         }
 
-        for (String username : usernames) {
-
-            User user = getUserByName(username.trim());
-            if (user == null) {
-                log.warn("User not found in testUserDbUsernames");
-                continue;
+        long deleted = 0;
+        for (int from = 0; from < usernames.size(); from += DELETE_CHUNK_SIZE) {
+            List<String> chunk = usernames.subList(from, Math.min(from + DELETE_CHUNK_SIZE, usernames.size()));
+            int chunkDeleted = userRepo.deleteByUserNames(chunk.toArray(String[]::new));
+            // the names are known already, so only theirs are evicted
+            if (chunkDeleted > 0) {
+                eventPublisher.publishEvent(UserChangedEvent.removed(chunk));
             }
-            deleteUserById(user.getId());
+            deleted += chunkDeleted;
         }
-        log.info("Deleted test users");
-        return true;
+        log.info("Deleted {} test users", deleted);
+        return deleted;
     }
 
     /**
-     * The index at which the currentUser should be placed within the
-     * participants list
+     * Delimiter used by the database to join the participant names
      */
-    private static final int CURRENT_USER_IDX = 0;
+    private static final String PARTICIPANT_DELIMITER = ",";
 
     /**
-     * Creates the list of participants from current user's name and page of
-     * users. Ensures that currentUserName is at the specified CURRENT_USER_IDX
-     * location in said list
+     * Spin the wheel with a single statement, the database picks the winner
+     * from the participants and applies both updates at once
      *
-     * @param userName
-     * @param page
-     * @return
+     * @param username
+     * @param pageState
+     * @param lockRows  lock the spinner and winner in id order before updating
+     * @return WheelSpinResult || null
      */
-    public List<String> createWheelParticipantsList(String currentUserName, Page<String> page) {
-        List<String> participants = page
-                .stream()
-                .collect(Collectors.toList());
-        participants.remove(currentUserName);
-        participants.add(CURRENT_USER_IDX, currentUserName);
-        participants = Collections.unmodifiableList(participants);
-        return participants;
-    }
+    @Transactional
+    public WheelSpinResult spinWheelAtomic(String username, PageState pageState, boolean lockRows) {
+        if (username == null || pageState == null) {
+            log.warn("username and pageState must exist");
+            return null;
+        }
 
-    public String getRandomWheelWinner(List<String> participants) {
-        return participants.get(
-                random.nextInt(participants.size()));
+        // the native update can't see pending changes on managed entities
+        userRepo.flush();
+
+        WheelSpinOutcome outcome;
+        if (!pageState.isKeyset()) {
+            PageRequest pageRequest = PageRequest.of(pageState.getPage(), pageState.getSize());
+            outcome = userRepo.spinWheel(
+                    username,
+                    pageRequest.getOffset(),
+                    pageRequest.getPageSize(),
+                    random.nextDouble(),
+                    lockRows);
+        } else if (pageState.getDirection() == PageState.Direction.BEFORE) {
+            outcome = userRepo.spinWheelBeforeId(
+                    username, pageState.getCursor(), pageState.getSize(), random.nextDouble(), lockRows);
+        } else {
+            outcome = userRepo.spinWheelAfterId(
+                    username, pageState.getCursor(), pageState.getSize(), random.nextDouble(), lockRows);
+        }
+
+        // entities loaded earlier in this transaction are stale after the native update
+        userRepo.detachAll();
+
+        return toSpinResult(username, outcome);
     }
 
     /**
-     * Spin the wheel and return the name of the user that was "dead" or null
+     * Users sampled for the global wheel beyond its size, to stand in for any
+     * that died since the leaderboard saw them
+     */
+    public static final int GLOBAL_WHEEL_SPARE_PARTICIPANTS = 4;
+
+    /**
+     * Spin the wheel against up to size random living users from the whole
+     * table instead of a page, sampled from the leaderboard however many are
+     * dead. Rejected if no other user is alive
      *
-     * @param model
      * @param username
-     * @param page
-     * @param size
-     * @return WheelSpinResult || null || throws Unchecked (which will be caught
-     *         by @Transactional)
+     * @param size     participants besides the spinner
+     * @param lockRows lock the spinner and winner in id order before updating
+     * @return WheelSpinResult || null
      */
     @Transactional
-    public WheelSpinResult spinWheel(String username, PageState pageState) {
-        if (username == null || pageState == null) {
-            log.warn("username and pageState must exist");
+    public WheelSpinResult spinGlobalWheel(String username, int size, boolean lockRows) {
+        if (username == null || !PageState.isValidSize(size)) {
+            log.warn("username and a valid size must exist");
             return null;
         }
 
-        User currentUser = getUserByName(username);
-        if (currentUser == null) {
-            log.warn("user doesn't exist");
+        // the native update can't see pending changes on managed entities
+        userRepo.flush();
+
+        List<String> sample = leaderboardService.sampleAlive(size + GLOBAL_WHEEL_SPARE_PARTICIPANTS, username, random);
+        if (sample.isEmpty()) {
+            log.warn("No other living user to spin the global wheel against");
             return null;
         }
-        if (currentUser.isDead()) {
-            log.warn("user cannot spin the wheel when dead");
+        WheelSpinOutcome outcome = userRepo.spinWheelGlobal(
+                username, sample.toArray(String[]::new), size, random.nextDouble(), lockRows);
+
+        // entities loaded earlier in this transaction are stale after the native update
+        userRepo.detachAll();
+
+        return toSpinResult(username, outcome);
+    }
+
+    /**
+     * A spin counts only if the spinner's own row was updated, anything else
+     * it updated is rolled back with it
+     *
+     * @return WheelSpinResult || null if the spin was rejected
+     */
+    private WheelSpinResult toSpinResult(String username, WheelSpinOutcome outcome) {
+        if (outcome == null || outcome.getWinnerName() == null || outcome.getSpinnerCruds() == null) {
+            if (outcome != null && outcome.getUpdatedRows() > 0
+                    && TransactionSynchronizationManager.isActualTransactionActive()) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            }
+            log.warn("user doesn't exist or cannot spin the wheel when dead");
             return null;
         }
 
-        Page<String> pageOfParticipants = getUserNamesByPageState(pageState);
-        List<String> participants = createWheelParticipantsList(currentUser.getUserName(), pageOfParticipants);
-        String winnerName = getRandomWheelWinner(participants);
-        User winnerUser;
-        if (winnerName.compareTo(currentUser.getUserName()) == 0) {
-            winnerUser = currentUser;
-        } else {
-            winnerUser = getUserByName(winnerName);
-        }
+        publishSpinOutcome(username, outcome);
 
-        winnerUser.setDead(true);
-        currentUser.setAwCrudsPerformed(currentUser.getAwCrudsPerformed() + 1);
+        List<String> participants = Collections.unmodifiableList(
+                Arrays.asList(outcome.getParticipants().split(PARTICIPANT_DELIMITER)));
+        return new WheelSpinResult(outcome.getWinnerName(), participants);
+    }
 
-        return new WheelSpinResult(winnerUser.getUserName(), participants);
+    private void publishSpinOutcome(String username, WheelSpinOutcome outcome) {
+        boolean selfKill = outcome.getWinnerName().equals(username);
+        if (outcome.getSpinnerCruds() != null) {
+            eventPublisher.publishEvent(
+                    UserChangedEvent.updated(username, outcome.getSpinnerCruds(), selfKill));
+        }
+        if (!selfKill && outcome.getWinnerCruds() != null) {
+            eventPublisher.publishEvent(
+                    UserChangedEvent.updated(outcome.getWinnerName(), outcome.getWinnerCruds(), true));
+        }
     }
 }
@@ -0,0 +1,115 @@
+package com.crud_project.crud.service;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import com.crud_project.crud.configuration.CacheConfig;
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.repository.UserProjection;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The users table of a page, read and rendered once per UserChangeVersion and
+ * shared by every session on that page, most of them are on the first one.
+ * The version is part of the key, so a change makes every entry unreachable
+ * and they age out of the userTables cache. The fragment must not depend on
+ * the session or current user (no forms, they'd carry its csrf token)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserTableCache {
+
+    public static final String TEMPLATE = "fragments/userTable";
+    public static final String FRAGMENT = "user-table";
+
+    private final UserService userService;
+    private final UserChangeVersion userChangeVersion;
+    private final ITemplateEngine templateEngine;
+    private final CacheManager cacheManager;
+
+    @Getter
+    @AllArgsConstructor
+    public static final class RenderedUserTable {
+
+        private final Slice<UserProjection> page;
+        private final String html;
+    }
+
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+
+        private final int page;
+        private final int size;
+        private final Integer cursor;
+        private final PageState.Direction direction;
+        private final long version;
+    }
+
+    /**
+     * Reads and renders the page on a miss, concurrent misses for the same
+     * page wait for the first instead of rendering it again
+     *
+     * @param pageState
+     * @param request   the page request the table is rendered into, for links
+     * @param response
+     * @return RenderedUserTable || null
+     */
+    public RenderedUserTable get(PageState pageState, HttpServletRequest request, HttpServletResponse response) {
+        if (pageState == null) {
+            return null;
+        }
+        // read before the page, see UserChangeVersion.etag
+        Key key = new Key(pageState.getPage(), pageState.getSize(),
+                pageState.isKeyset() ? pageState.getCursor() : null,
+                pageState.isKeyset() ? pageState.getDirection() : null,
+                userChangeVersion.getVersion());
+        Cache cache = cacheManager.getCache(CacheConfig.USER_TABLES);
+        if (cache == null) {
+            return render(pageState, request, response);
+        }
+        return cache.get(key, () -> render(pageState, request, response));
+    }
+
+    private RenderedUserTable render(PageState pageState, HttpServletRequest request, HttpServletResponse response) {
+        Slice<UserProjection> page = pageState.isKeyset()
+                ? userService.getUserProjectionsByKeyset(pageState)
+                : userService.getUserProjectionSliceByPageState(pageState);
+        WebContext context = new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getServletContext())
+                        .buildExchange(request, response),
+                request.getLocale(),
+                Map.of("page", page));
+        String html = templateEngine.process(TEMPLATE, Set.of(FRAGMENT), context);
+        log.debug("Rendered the user table of page {} size {}", pageState.getPage(), pageState.getSize());
+        return new RenderedUserTable(page, html);
+    }
+
+    /**
+     * Caffeine weigher of the userTables cache, about the bytes an entry
+     * holds. The html is ASCII in practice, a byte per char with compact
+     * strings, rows are counted at a rough 64 bytes each
+     */
+    public static int weigh(Object key, Object value) {
+        RenderedUserTable userTable = (RenderedUserTable) value;
+        return userTable.html.length() + userTable.page.getNumberOfElements() * 64;
+    }
+}
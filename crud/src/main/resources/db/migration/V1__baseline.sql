@@ -0,0 +1,15 @@
+-- Schema as Hibernate's ddl-auto=update created it. IF NOT EXISTS so a
+-- database that predates Flyway (baselined at version 0) passes through unchanged
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id                 integer      NOT NULL,
+    aw_cruds_performed integer      NOT NULL,
+    dead               boolean      NOT NULL,
+    hashed_password    varchar(255) NOT NULL,
+    user_name          varchar(255) NOT NULL,
+    version            bigint       NOT NULL,
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT users_user_name_key UNIQUE (user_name)
+);
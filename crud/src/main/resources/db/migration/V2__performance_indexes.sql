@@ -0,0 +1,27 @@
+-- Lookups by user_name select the projection fields (id, user_name,
+-- aw_cruds_performed, dead), carrying them in the unique index lets them be
+-- index only scans. It replaces the plain unique constraint, whose name
+-- depends on who created the table, rather than keeping two indexes on user_name
+DO $$
+DECLARE
+    old_constraint record;
+BEGIN
+    FOR old_constraint IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'users'::regclass
+          AND contype = 'u'
+          AND pg_get_constraintdef(oid) = 'UNIQUE (user_name)'
+    LOOP
+        EXECUTE format('ALTER TABLE users DROP CONSTRAINT %I', old_constraint.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE users
+    ADD CONSTRAINT users_user_name_key UNIQUE (user_name) INCLUDE (id, aw_cruds_performed, dead);
+
+-- Living users in id order, for picking and paging wheel participants
+-- without reading the dead ones
+CREATE INDEX IF NOT EXISTS users_alive_idx ON users (id) INCLUDE (user_name) WHERE dead = false;
+
+-- Ranking order of the leaderboard, most aw cruds first and ties by name
+CREATE INDEX IF NOT EXISTS users_ranking_idx ON users (aw_cruds_performed DESC, user_name);
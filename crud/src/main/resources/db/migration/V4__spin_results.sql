@@ -0,0 +1,14 @@
+-- Spin results of crud.page-state.mode=request waiting for the page that
+-- shows them, by the id in its url, so any instance can show them. Expired
+-- ones are deleted in chunks by SpinResultStore through the expires_at index
+
+CREATE TABLE IF NOT EXISTS spin_results (
+    id           uuid         NOT NULL,
+    user_name    varchar(255) NOT NULL,
+    winner_name  varchar(255) NOT NULL,
+    participants text[]       NOT NULL,
+    expires_at   timestamptz  NOT NULL,
+    CONSTRAINT spin_results_pk PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS spin_results_expires_at_idx ON spin_results (expires_at);
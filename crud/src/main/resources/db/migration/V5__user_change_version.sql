@@ -0,0 +1,4 @@
+-- Numbers transactions that change users, every instance is notified of the
+-- number on commit and tags its responses with it, see UserChangeChannel
+
+CREATE SEQUENCE IF NOT EXISTS user_change_version;
@@ -0,0 +1,4 @@
+-- One users_seq call hands out a whole 500 row JDBC batch of ids, see
+-- User.id. Ids handed out before stay below the next value, so none repeat
+
+ALTER SEQUENCE users_seq INCREMENT BY 500;
@@ -0,0 +1,15 @@
+-- Every user change notification, so an instance that lost its listening
+-- connection catches up on what it missed instead of reloading everything.
+-- Changes older than crud.user-changes.retention-minutes are deleted oldest
+-- version first, see UserChangeChannel
+
+CREATE TABLE IF NOT EXISTS user_change_log (
+    version    bigint      NOT NULL,
+    origin     varchar(16) NOT NULL,
+    own_change bigint      NOT NULL,
+    events     json        NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT now(),
+    CONSTRAINT user_change_log_pk PRIMARY KEY (version)
+);
+
+CREATE INDEX IF NOT EXISTS user_change_log_created_at_idx ON user_change_log (created_at);
@@ -0,0 +1,70 @@
+document.addEventListener('DOMContentLoaded', () => {
+    const userTable = document.getElementById("user-table");
+    if (!userTable || !window.EventSource) return;
+
+    // the table is shared between users, see UserTableCache
+    const currentUser = document.getElementById("content")?.getAttribute("data-current-user");
+    const source = new EventSource(userTable.getAttribute("data-events-url"));
+
+    source.addEventListener("user", event => {
+        const delta = JSON.parse(event.data);
+        switch (delta.type) {
+            case "added":
+            case "updated":
+                // the page we were on may have been the last one to see us alive
+                if (delta.dead && delta.userName === currentUser) {
+                    window.location.reload();
+                    return;
+                }
+                updateRow(userTable, delta);
+                break;
+            case "removed":
+                for (const userName of delta.userNames ?? []) {
+                    findRow(userTable, { userName })?.remove();
+                }
+                findRow(userTable, delta)?.remove();
+                break;
+            case "reload":
+                markStale(userTable);
+                break;
+        }
+    });
+
+    // dropped for falling behind, changes may have been missed
+    source.addEventListener("error", () => {
+        if (source.readyState === EventSource.CONNECTING) markStale(userTable);
+    });
+});
+
+/**
+ * @param {Element} userTable
+ * @param {{id?: number, userName?: string}} delta
+ * @returns {Element | null} the delta's user's row if it's on the page
+ */
+function findRow(userTable, delta) {
+    for (const row of userTable.querySelectorAll("tbody tr")) {
+        if ((delta.userName !== undefined && row.getAttribute("data-user-name") === delta.userName)
+            || (delta.id !== undefined && row.getAttribute("data-user-id") === String(delta.id))) {
+            return row;
+        }
+    }
+    return null;
+}
+
+/**
+ * @param {Element} userTable
+ * @param {{userName: string, awCrudsPerformed: number, dead: boolean}} delta
+ */
+function updateRow(userTable, delta) {
+    const row = findRow(userTable, delta);
+    if (!row) return;
+    row.querySelector(".aw-cruds").textContent = delta.awCrudsPerformed;
+    row.classList.toggle("dead", delta.dead);
+}
+
+/**
+ * @param {Element} userTable
+ */
+function markStale(userTable) {
+    userTable.querySelector("#user-table-stale")?.classList.remove("hide");
+}
\ No newline at end of file
@@ -3,13 +3,19 @@ package com.crud_project.crud.test.e2e;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -17,25 +23,38 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Propagation;
 
+import com.crud_project.crud.configuration.CacheConfig;
+import com.crud_project.crud.dvo.PageState;
 import com.crud_project.crud.entity.User;
+import com.crud_project.crud.event.UserChangedEvent;
+import com.crud_project.crud.metrics.StatementCountFilter;
 import com.crud_project.crud.repository.UserProjection;
 import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.service.UserChangeVersion;
+import com.crud_project.crud.service.UserEventHub;
 import com.crud_project.crud.service.UserService;
 import com.crud_project.crud.test.config.DatabaseTestcontainersConfiguration;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpSession;
 import jakarta.transaction.Transactional;
 
-@SpringBootTest
+// over budget requests fail the test instead of just logging
+@SpringBootTest(properties = "crud.statement-budget.fail=true")
 @AutoConfigureMockMvc
 @Transactional
 @Import(DatabaseTestcontainersConfiguration.class)
@@ -50,6 +69,27 @@ public class E2eTests {
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserEventHub userEventHub;
+
+    @Autowired
+    private UserChangeVersion userChangeVersion;
+
+    // caches outlive the rolled back test transactions
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
     private static final String TEST_USERNAME = "testuser";
     private static final String TEST_PASSWORD = "TestPass123!";
     private static final String VALID_USERNAME = "validuser123";
@@ -202,6 +242,37 @@ public class E2eTests {
                     .andExpect(MockMvcResultMatchers.view().name("crud"));
         }
 
+        @Test
+        @DisplayName("Accessing CRUD page with a keyset page state should succeed")
+        public void testAccessCrudPageWithKeysetPageState() throws Exception {
+            userService.createTestUsers();
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/crud")
+                    .sessionAttr("currentUser_pageState", PageState.builder().size(5).cursor(0).build()))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.view().name("crud"))
+                    .andExpect(MockMvcResultMatchers.content().string(containsString("name=\"afterId\"")));
+        }
+
+        @Test
+        @DisplayName("An empty keyset page should render without a next page")
+        public void testAccessCrudPageWithEmptyKeysetPage() throws Exception {
+            // nothing is before the first id, and the next page is all users
+            mockMvc.perform(MockMvcRequestBuilders.get("/crud")
+                    .sessionAttr("currentUser_pageState", PageState.of(0, 5, null, 0)))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().string(containsString("name=\"afterId\" value=\"0\"")));
+        }
+
+        @Test
+        @DisplayName("Leaderboard page should succeed for authenticated user")
+        public void testAccessLeaderboardPage() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.get("/crud/leaderboard")
+                    .param("top", "5"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.view().name("leaderboard"));
+        }
+
         @Test
         @DisplayName("Create test users should succeed")
         public void testCreateTestUsers() throws Exception {
@@ -211,7 +282,7 @@ public class E2eTests {
                     .andExpect(MockMvcResultMatchers.redirectedUrl("/crud"));
 
             // Verify test users were created
-            List<UserProjection> users = userRepo.findAllUserProjectionBy(PageRequest.of(0, 10)).getContent();
+            List<UserProjection> users = userRepo.findUserProjectionSliceBy(PageRequest.of(0, 10)).getContent();
             assertFalse(users.isEmpty());
         }
 
@@ -230,6 +301,24 @@ public class E2eTests {
             assertNotNull(session.getAttribute("currentUser_pageState"));
         }
 
+        @Test
+        @DisplayName("Request page with a cursor should set a keyset page state")
+        public void testRequestPageWithCursorSetsKeysetPageState() throws Exception {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/crud/requestPage")
+                    .param("pageSize", "20")
+                    .param("afterId", "0")
+                    .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                    .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
+                    .andExpect(MockMvcResultMatchers.redirectedUrl("/crud#user-table"))
+                    .andReturn();
+
+            HttpSession session = result.getRequest().getSession();
+            PageState pageState = (PageState) session.getAttribute("currentUser_pageState");
+            assertNotNull(pageState);
+            assertTrue(pageState.isKeyset());
+            assertEquals(0, pageState.getCursor());
+        }
+
         @Test
         @DisplayName("Wheel spin should increment awCrudsPerformed")
         public void testWheelSpinIncrementsAwCrudsPerformed() throws Exception {
@@ -247,6 +336,33 @@ public class E2eTests {
             assertTrue(userAfter.getAwCrudsPerformed() > awCrudsBefore);
         }
 
+        @Test
+        @DisplayName("Wheel spin should be timed by outcome and count its JDBC statements")
+        public void testWheelSpinRecordsMetrics() throws Exception {
+            long spinsBefore = spinCount();
+            long requestsBefore = spinStatements() == null ? 0 : spinStatements().count();
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/crud/spinWheel")
+                    .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                    .andExpect(MockMvcResultMatchers.status().is3xxRedirection());
+
+            assertEquals(spinsBefore + 1, spinCount());
+            DistributionSummary statements = spinStatements();
+            assertNotNull(statements);
+            assertEquals(requestsBefore + 1, statements.count());
+            assertTrue(statements.max() > 0);
+        }
+
+        private long spinCount() {
+            return meterRegistry.find("wheel.spin").timers().stream().mapToLong(timer -> timer.count()).sum();
+        }
+
+        private DistributionSummary spinStatements() {
+            return meterRegistry.find(StatementCountFilter.METRIC_NAME)
+                    .tags("method", "POST", "uri", "/crud/spinWheel")
+                    .summary();
+        }
+
         @Test
         @DisplayName("Delete test users should succeed")
         public void testDeleteTestUsers() throws Exception {
@@ -264,6 +380,27 @@ public class E2eTests {
             assertTrue(usersAfter.isEmpty());
         }
 
+        @Test
+        @DisplayName("Events stream should push user changes")
+        public void testEventsStreamPushesUserChanges() throws Exception {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/crud/events"))
+                    .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                    .andReturn();
+
+            // published straight to the hub, the test transaction never commits
+            userEventHub.onUserChanged(UserChangedEvent.updated(TEST_USERNAME, 7, true));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!result.getResponse().getContentAsString().contains(TEST_USERNAME)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            String stream = result.getResponse().getContentAsString();
+            assertTrue(stream.contains("event:" + UserEventHub.EVENT_NAME));
+            assertTrue(stream.contains("\"userName\":\"" + TEST_USERNAME + "\""));
+            assertTrue(stream.contains("\"dead\":true"));
+        }
+
         @Test
         @DisplayName("Page state validation should work correctly")
         public void testPageStateValidation() throws Exception {
@@ -292,6 +429,255 @@ public class E2eTests {
         }
     }
 
+    // Pins how many JDBC statements each hot endpoint runs with cold caches, so
+    // an extra query per request shows up here. Runs outside the test
+    // transaction so every request commits, and flushes, like it would in
+    // production. What it creates is deleted after each test
+    @Nested
+    @DisplayName("Statement Count Tests")
+    @WithMockUser(username = TEST_USERNAME)
+    @org.springframework.transaction.annotation.Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public class StatementCountTests {
+
+        @BeforeEach
+        public void setUpAuthenticatedUser() {
+            userService.registerUser(TEST_USERNAME, TEST_PASSWORD);
+            userService.createTestUsers(20);
+        }
+
+        @AfterEach
+        public void deleteUsers() {
+            userRepo.deleteByUserNames(new String[] { TEST_USERNAME, VALID_USERNAME });
+            userService.deleteTestUsers(20);
+        }
+
+        private int statements(MvcResult result) {
+            return (int) result.getRequest().getAttribute(StatementCountFilter.STATEMENTS_ATTRIBUTE);
+        }
+
+        @Test
+        @DisplayName("Crud page should run a fixed number of statements")
+        public void testCrudPageStatements() throws Exception {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/crud"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn();
+            assertEquals(2, statements(result));
+        }
+
+        @Test
+        @DisplayName("Crud page should reuse the user table until a user changes")
+        public void testCrudPageReusesUserTable() throws Exception {
+            MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/crud"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().string(containsString("id=\"user-table\"")))
+                    .andReturn();
+            assertEquals(2, statements(first));
+
+            // the current user is cached too, nothing is left to read
+            MvcResult second = mockMvc.perform(MockMvcRequestBuilders.get("/crud"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().string(containsString("id=\"user-table\"")))
+                    .andReturn();
+            assertEquals(0, statements(second));
+
+            userService.registerUser(VALID_USERNAME, VALID_PASSWORD);
+
+            MvcResult changed = mockMvc.perform(MockMvcRequestBuilders.get("/crud"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn();
+            assertEquals(1, statements(changed));
+        }
+
+        @Test
+        @DisplayName("Wheel spin should run a fixed number of statements")
+        public void testSpinWheelStatements() throws Exception {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/crud/spinWheel")
+                    .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                    .andExpect(MockMvcResultMatchers.redirectedUrl("/crud#user-wheel"))
+                    .andReturn();
+            // the change notification is sent after the commit, on another connection
+            assertEquals(1, statements(result));
+        }
+
+        @Test
+        @DisplayName("Global wheel spin should run a fixed number of statements")
+        public void testGlobalSpinWheelStatements() throws Exception {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/crud/spinWheel")
+                    .param("global", "true")
+                    .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                    .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
+                    .andExpect(MockMvcResultMatchers.flash().attributeExists("wheel_winner"))
+                    .andReturn();
+            assertEquals(1, statements(result));
+        }
+
+        @Test
+        @DisplayName("Request page should run a fixed number of statements")
+        public void testRequestPageStatements() throws Exception {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/crud/requestPage")
+                    .param("pageNumber", "1")
+                    .param("pageSize", "10")
+                    .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                    .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
+                    .andReturn();
+            assertEquals(0, statements(result));
+        }
+
+        @Test
+        @DisplayName("Registration should run a fixed number of statements")
+        public void testRegisterStatements() throws Exception {
+            long idsBefore = usersSeqLastValue();
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/auth/register")
+                    .param("username", VALID_USERNAME)
+                    .param("password", VALID_PASSWORD)
+                    .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                    .andExpect(MockMvcResultMatchers.redirectedUrl("/auth/login"))
+                    .andReturn();
+            // the name check and the insert, and a users_seq call if the
+            // pooled ids ran out
+            int sequenceCalls = usersSeqLastValue() == idsBefore ? 0 : 1;
+            assertEquals(2 + sequenceCalls, statements(result));
+        }
+
+        private long usersSeqLastValue() {
+            return jdbcTemplate.queryForObject("SELECT last_value FROM users_seq", Long.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("API Tests")
+    @WithMockUser(username = TEST_USERNAME)
+    public class ApiTests {
+
+        @BeforeEach
+        public void setUpAuthenticatedUser() {
+            userService.registerUser(TEST_USERNAME, TEST_PASSWORD);
+            userService.createTestUsers(20);
+        }
+
+        @Test
+        @DisplayName("Users page should be answered 304 without queries until a user changes")
+        public void testUsersPageConditionalGet() throws Exception {
+            MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/crud/api/users")
+                    .param("pageSize", "5"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.header().string("Cache-Control", "private, no-cache"))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(5))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.hasNext").value(true))
+                    .andReturn();
+            String etag = first.getResponse().getHeader("ETag");
+            assertNotNull(etag);
+
+            MvcResult notModified = mockMvc.perform(MockMvcRequestBuilders.get("/crud/api/users")
+                    .param("pageSize", "5")
+                    .header("If-None-Match", etag))
+                    .andExpect(MockMvcResultMatchers.status().isNotModified())
+                    .andReturn();
+            assertEquals(0, notModified.getRequest().getAttribute(StatementCountFilter.STATEMENTS_ATTRIBUTE));
+            assertEquals("", notModified.getResponse().getContentAsString());
+
+            // the test transaction never commits, a rollback moves the version too
+            userChangeVersion.rolledBack();
+
+            MvcResult changed = mockMvc.perform(MockMvcRequestBuilders.get("/crud/api/users")
+                    .param("pageSize", "5")
+                    .header("If-None-Match", etag))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn();
+            assertNotEquals(etag, changed.getResponse().getHeader("ETag"));
+        }
+
+        @Test
+        @DisplayName("Keyset users page should read from the cursor")
+        public void testUsersKeysetPage() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.get("/crud/api/users")
+                    .param("afterId", "0")
+                    .param("pageSize", "3"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(3))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.hasPrevious").value(false));
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/crud/api/users")
+                    .param("pageSize", "101"))
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Current user should be tagged per user")
+        public void testCurrentUserConditionalGet() throws Exception {
+            MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/crud/api/users/me"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.userName").value(TEST_USERNAME))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.dead").value(false))
+                    .andReturn();
+            String etag = first.getResponse().getHeader("ETag");
+            assertNotEquals(userChangeVersion.etag(), etag);
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/crud/api/users/me")
+                    .header("If-None-Match", etag))
+                    .andExpect(MockMvcResultMatchers.status().isNotModified());
+        }
+
+        @Test
+        @DisplayName("Spinning through the API should return the result")
+        public void testSpin() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.post("/crud/api/spin")
+                    .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.winnerName").isString())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.participants").isArray());
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/crud/api/spin"))
+                    .andExpect(MockMvcResultMatchers.status().isForbidden());
+        }
+    }
+
+    @Nested
+    @DisplayName("Static Resource Tests")
+    public class StaticResourceTests {
+
+        private static final Pattern MAIN_CSS = Pattern.compile("/css/main-[0-9a-f]{32}\\.css");
+
+        @Test
+        @DisplayName("Static resources should be linked by content hash and cached for good")
+        public void testStaticResourcesAreFingerprintedAndImmutable() throws Exception {
+            String page = mockMvc.perform(MockMvcRequestBuilders.get("/auth/login"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            Matcher link = MAIN_CSS.matcher(page);
+            assertTrue(link.find(), "main.css should be linked by its hashed name");
+
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(link.group())
+                    .header("Accept-Encoding", "gzip"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.header().string("Cache-Control",
+                            containsString("immutable")))
+                    .andExpect(MockMvcResultMatchers.header().string("Cache-Control",
+                            containsString("max-age=31536000")))
+                    .andExpect(MockMvcResultMatchers.header().string("Content-Encoding", "gzip"))
+                    .andReturn();
+
+            // none of our filters, nor the security chain, did anything
+            assertNull(result.getRequest().getAttribute(StatementCountFilter.STATEMENTS_ATTRIBUTE));
+            assertNull(result.getRequest().getSession(false));
+            assertNull(result.getResponse().getHeader("X-Frame-Options"));
+        }
+
+        @Test
+        @DisplayName("Static resources under their plain names should be revalidated")
+        public void testPlainStaticResourcesAreRevalidated() throws Exception {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/css/main.css"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.header().string("Cache-Control", "no-cache, public"))
+                    .andExpect(MockMvcResultMatchers.header().exists("Last-Modified"))
+                    .andReturn();
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/css/main.css")
+                    .header("If-Modified-Since", result.getResponse().getHeader("Last-Modified")))
+                    .andExpect(MockMvcResultMatchers.status().isNotModified());
+        }
+    }
+
     @Nested
     @DisplayName("Security Tests")
     public class SecurityTests {
@@ -410,8 +796,10 @@ public class E2eTests {
                     .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
                     .andExpect(MockMvcResultMatchers.redirectedUrl("/crud"));
 
-            // Request page and spin wheel
+            // Request page and spin wheel as the logged in user
             mockMvc.perform(MockMvcRequestBuilders.post("/crud/requestPage")
+                    .session((MockHttpSession) session)
+                    .with(SecurityMockMvcRequestPostProcessors.user(username))
                     .param("pageNumber", "0")
                     .param("pageSize", "10")
                     .with(SecurityMockMvcRequestPostProcessors.csrf()))
@@ -419,6 +807,8 @@ public class E2eTests {
                     .andExpect(MockMvcResultMatchers.redirectedUrl("/crud#user-table"));
 
             mockMvc.perform(MockMvcRequestBuilders.post("/crud/spinWheel")
+                    .session((MockHttpSession) session)
+                    .with(SecurityMockMvcRequestPostProcessors.user(username))
                     .with(SecurityMockMvcRequestPostProcessors.csrf()))
                     .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
                     .andExpect(MockMvcResultMatchers.redirectedUrl("/crud#user-wheel"));
@@ -492,18 +882,13 @@ public class E2eTests {
             // by ensuring the database is rolled back after each test
 
             // Count users before
-            List<UserProjection> usersBefore = userRepo
-                    .findAllUserProjectionBy(PageRequest.of(0, 100)).getContent();
-            int countBefore = usersBefore.size();
+            long countBefore = userRepo.count();
 
             // Create a test user
             userService.registerUser("tempuser", "TestPass123!");
 
             // Count users after
-            List<UserProjection> usersAfter = userRepo
-                    .findAllUserProjectionBy(PageRequest.of(0, 100))
-                    .getContent();
-            int countAfter = usersAfter.size();
+            long countAfter = userRepo.count();
 
             // Verify user was created
             assertTrue(countAfter > countBefore);
@@ -536,5 +921,20 @@ public class E2eTests {
             assertNotNull(updatedProjection);
             assertEquals(5, updatedProjection.getAwCrudsPerformed());
         }
+
+        @Test
+        @DisplayName("User projection lookups should be served from the cache")
+        public void testUserProjectionByNameIsCached() throws Exception {
+            userService.registerUser("cachetest", "TestPass123!");
+
+            UserProjection first = userService.getUserProjectionByName("cachetest");
+            UserProjection second = userService.getUserProjectionByName("cachetest");
+
+            assertNotNull(first);
+            assertSame(first, second);
+            assertNotNull(cacheManager.getCache(CacheConfig.USER_PROJECTIONS).get("cachetest"));
+            assertNull(userService.getUserProjectionByName("nonExistentUser"));
+            assertNull(cacheManager.getCache(CacheConfig.USER_PROJECTIONS).get("nonExistentUser"));
+        }
     }
 }
@@ -0,0 +1,378 @@
+package com.crud_project.crud.test.e2e;
+
+import java.io.ByteArrayInputStream;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.crud_project.crud.CrudApplication;
+import com.crud_project.crud.controller.SessionKeys;
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.event.UserChangedEvent;
+import com.crud_project.crud.metrics.StatementCountFilter;
+import com.crud_project.crud.security.CompactSessionSerializer;
+import com.crud_project.crud.security.ExpiredSessionCleaner;
+import com.crud_project.crud.service.LeaderboardService;
+import com.crud_project.crud.service.UserChangeChannel;
+import com.crud_project.crud.service.UserChangeVersion;
+import com.crud_project.crud.service.UserService;
+import com.crud_project.crud.test.config.DatabaseTestcontainersConfiguration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// crud.session.store=jdbc, two instances on the one database like two
+// replicas behind a load balancer without sticky sessions. Every request
+// alternates between them with the same cookies
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "crud.session.store=jdbc", "crud.session.cleanup-chunk-size=2" })
+@Import(DatabaseTestcontainersConfiguration.class)
+public class JdbcSessionE2eTests {
+
+    private static final String TEST_USERNAME = "jdbcsessionuser";
+    private static final String TEST_PASSWORD = "TestPass123!";
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private static ConfigurableApplicationContext otherInstance;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ExpiredSessionCleaner expiredSessionCleaner;
+
+    @Autowired
+    private UserChangeVersion userChangeVersion;
+
+    @Autowired
+    private UserChangeChannel userChangeChannel;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private HttpClient client;
+    private String instanceA;
+    private String instanceB;
+    private int userId;
+
+    @BeforeEach
+    public void setUp() {
+        if (otherInstance == null) {
+            otherInstance = SpringApplication.run(CrudApplication.class,
+                    "--server.port=0",
+                    "--spring.docker.compose.enabled=false",
+                    "--spring.datasource.url=" + connectionDetails.getJdbcUrl(),
+                    "--spring.datasource.username=" + connectionDetails.getUsername(),
+                    "--spring.datasource.password=" + connectionDetails.getPassword(),
+                    "--crud.session.store=jdbc");
+        }
+        instanceA = "http://localhost:" + port;
+        instanceB = "http://localhost:" + otherInstance.getEnvironment().getProperty("local.server.port");
+        // cookies aren't kept per port, both instances see the one session
+        client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        userId = userService.registerUser(TEST_USERNAME, TEST_PASSWORD).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM spring_session WHERE principal_name = ?", TEST_USERNAME);
+        userService.deleteUserById(userId);
+    }
+
+    @AfterAll
+    public static void stopOtherInstance() {
+        if (otherInstance != null) {
+            otherInstance.close();
+            otherInstance = null;
+        }
+    }
+
+    @Test
+    @DisplayName("A session started on one instance should be used by the other")
+    public void testSessionIsSharedBetweenInstances() throws Exception {
+        // the csrf token of the login form is in the session A started
+        String loginToken = csrfToken(get(instanceA, "/auth/login"));
+        HttpResponse<String> login = post(instanceB, "/auth/login", Map.of(
+                "username", TEST_USERNAME,
+                "password", TEST_PASSWORD,
+                "_csrf", loginToken));
+        assertEquals(302, login.statusCode());
+        assertTrue(location(login).endsWith("/crud"), location(login));
+
+        HttpResponse<String> crud = get(instanceA, "/crud");
+        assertEquals(200, crud.statusCode());
+
+        HttpResponse<String> requestPage = post(instanceB, "/crud/requestPage", Map.of(
+                "pageNumber", "0",
+                "pageSize", "3",
+                "_csrf", csrfToken(crud)));
+        assertEquals(302, requestPage.statusCode());
+        assertEquals(3, storedPageState().getSize());
+
+        HttpResponse<String> logout = post(instanceA, "/auth/logout", Map.of("_csrf", csrfToken(get(instanceB, "/crud"))));
+        assertTrue(location(logout).endsWith("/auth/login?logout=true"), location(logout));
+        HttpResponse<String> loggedOut = get(instanceB, "/crud");
+        assertEquals(302, loggedOut.statusCode());
+        assertTrue(location(loggedOut).endsWith("/auth/login"), location(loggedOut));
+    }
+
+    @Test
+    @DisplayName("Requests that change nothing in the session should not write it")
+    public void testUnchangedSessionIsNotWritten() throws Exception {
+        String loginToken = csrfToken(get(instanceA, "/auth/login"));
+        post(instanceA, "/auth/login", Map.of(
+                "username", TEST_USERNAME,
+                "password", TEST_PASSWORD,
+                "_csrf", loginToken));
+        // puts the page state in the session
+        assertEquals(200, get(instanceB, "/crud").statusCode());
+        long lastAccessTime = userSessionLastAccessTime();
+
+        assertEquals(200, get(instanceA, "/crud").statusCode());
+        assertEquals(200, get(instanceB, "/crud").statusCode());
+        assertEquals(lastAccessTime, userSessionLastAccessTime());
+    }
+
+    @Test
+    @DisplayName("Session reads and writes should count towards a request's statements")
+    public void testSessionStatementsAreCounted() throws Exception {
+        String loginToken = csrfToken(get(instanceA, "/auth/login"));
+        post(instanceA, "/auth/login", Map.of(
+                "username", TEST_USERNAME,
+                "password", TEST_PASSWORD,
+                "_csrf", loginToken));
+        // stores the page state and caches the page
+        assertEquals(200, get(instanceA, "/crud").statusCode());
+        double before = crudStatements().totalAmount();
+
+        assertEquals(200, get(instanceA, "/crud").statusCode());
+        // nothing but the session, which Spring Session reads again after
+        // saving it
+        assertEquals(2, crudStatements().totalAmount() - before);
+    }
+
+    private DistributionSummary crudStatements() {
+        return meterRegistry.find(StatementCountFilter.METRIC_NAME)
+                .tags("method", "GET", "uri", "/crud")
+                .summary();
+    }
+
+    @Test
+    @DisplayName("Expired sessions should be deleted in chunks")
+    public void testExpiredSessionsAreDeleted() {
+        long expired = System.currentTimeMillis() - 1000;
+        for (int i = 0; i < 5; i++) {
+            String id = String.format("00000000-0000-0000-0000-%012d", i);
+            jdbcTemplate.update("""
+                    INSERT INTO spring_session (primary_id, session_id, creation_time, last_access_time,
+                        max_inactive_interval, expiry_time)
+                    VALUES (?, ?, ?, ?, 1, ?)
+                    """, id, id, expired, expired, expired);
+            jdbcTemplate.update("""
+                    INSERT INTO spring_session_attributes (session_primary_id, attribute_name, attribute_bytes)
+                    VALUES (?, 'attribute', '\\x00'::bytea)
+                    """, id);
+        }
+
+        // the scheduled run may have taken some already, other tests' expired
+        // sessions are taken too
+        expiredSessionCleaner.deleteExpiredSessions();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM spring_session WHERE primary_id LIKE '00000000-%'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM spring_session_attributes WHERE session_primary_id LIKE '00000000-%'",
+                Integer.class));
+    }
+
+    @Test
+    @DisplayName("User changes on one instance should reach the other's caches, leaderboard and tags")
+    public void testUserChangesReachTheOtherInstance() throws Exception {
+        UserService otherUserService = otherInstance.getBean(UserService.class);
+        LeaderboardService otherLeaderboard = otherInstance.getBean(LeaderboardService.class);
+        UserChangeVersion otherVersion = otherInstance.getBean(UserChangeVersion.class);
+        await(() -> otherLeaderboard.getEntry(TEST_USERNAME) != null);
+        assertEquals(0, otherUserService.getUserProjectionByName(TEST_USERNAME).getAwCrudsPerformed());
+
+        User user = userService.getUserById(userId);
+        user.setAwCrudsPerformed(5);
+        userService.updateUser(user);
+
+        await(() -> otherUserService.getUserProjectionByName(TEST_USERNAME).getAwCrudsPerformed() == 5);
+        await(() -> otherLeaderboard.getEntry(TEST_USERNAME).getAwCrudsPerformed() == 5);
+        // once each saw its notification both tag alike
+        await(() -> userChangeVersion.etag().equals(otherVersion.etag()));
+    }
+
+    @Test
+    @DisplayName("An instance that lost its listening connection should catch up without reloading")
+    public void testUserChangesAreCaughtUpAfterReconnecting() throws Exception {
+        UserService otherUserService = otherInstance.getBean(UserService.class);
+        await(() -> otherUserService.getUserProjectionByName(TEST_USERNAME) != null);
+        List<UserChangedEvent> received = new CopyOnWriteArrayList<>();
+        ApplicationListener<PayloadApplicationEvent<?>> listener = receiveUserChanges(received);
+        try {
+            // both instances' listeners, the change is sent while they reconnect
+            jdbcTemplate.queryForList(
+                    "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = 'user-changes'");
+            User user = userService.getUserById(userId);
+            user.setAwCrudsPerformed(7);
+            userService.updateUser(user);
+
+            await(() -> otherUserService.getUserProjectionByName(TEST_USERNAME).getAwCrudsPerformed() == 7);
+            assertTrue(received.stream().noneMatch(event -> event.getType() == UserChangedEvent.Type.BULK_CHANGED));
+        } finally {
+            otherInstance.removeApplicationListener(listener);
+        }
+    }
+
+    @Test
+    @DisplayName("Removing more users than fit in a notification should send them in parts")
+    public void testLargeRemovalIsSentInParts() throws Exception {
+        List<UserChangedEvent> received = new CopyOnWriteArrayList<>();
+        ApplicationListener<PayloadApplicationEvent<?>> listener = receiveUserChanges(received);
+        try {
+            userService.createTestUsers(1000);
+            await(() -> received.stream().anyMatch(event -> event.getType() == UserChangedEvent.Type.BULK_CHANGED));
+            received.clear();
+
+            assertEquals(1000, userService.deleteTestUsers(1000));
+
+            await(() -> removedNames(received).size() == 1000);
+            assertTrue(received.size() > 1);
+            assertTrue(received.stream().allMatch(event -> event.getType() == UserChangedEvent.Type.REMOVED));
+        } finally {
+            otherInstance.removeApplicationListener(listener);
+            userService.deleteTestUsers(1000);
+        }
+    }
+
+    @Test
+    @DisplayName("Old user changes should be deleted oldest first")
+    public void testOldUserChangesAreDeleted() throws Exception {
+        // versions the sequence never hands out, older than any other
+        for (int version = -3; version < 0; version++) {
+            jdbcTemplate.update("""
+                    INSERT INTO user_change_log (version, origin, own_change, events, created_at)
+                    VALUES (?, 'test', 0, '[]', now() - interval '2 days')
+                    """, version);
+        }
+        // the newest change is always kept, setUp's registration is one
+        await(() -> jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_change_log WHERE version > 0", Integer.class) > 0);
+
+        userChangeChannel.deleteOldChanges();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_change_log WHERE version < 0", Integer.class));
+    }
+
+    private static ApplicationListener<PayloadApplicationEvent<?>> receiveUserChanges(List<UserChangedEvent> received) {
+        ApplicationListener<PayloadApplicationEvent<?>> listener = event -> {
+            if (event.getPayload() instanceof UserChangedEvent changed) {
+                received.add(changed);
+            }
+        };
+        otherInstance.addApplicationListener(listener);
+        return listener;
+    }
+
+    private static Set<String> removedNames(List<UserChangedEvent> received) {
+        return received.stream()
+                .filter(event -> event.getUserNames() != null)
+                .flatMap(event -> event.getUserNames().stream())
+                .collect(Collectors.toSet());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(20);
+        }
+    }
+
+    private PageState storedPageState() throws Exception {
+        byte[] bytes = jdbcTemplate.queryForObject("""
+                SELECT a.attribute_bytes FROM spring_session_attributes a
+                JOIN spring_session s ON s.primary_id = a.session_primary_id
+                WHERE s.principal_name = ? AND a.attribute_name = ?
+                """, byte[].class, TEST_USERNAME, SessionKeys.CUR_USER_PAGE_STATE);
+        return (PageState) new CompactSessionSerializer(getClass().getClassLoader())
+                .deserialize(new ByteArrayInputStream(bytes));
+    }
+
+    private long userSessionLastAccessTime() {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_access_time FROM spring_session WHERE principal_name = ?", Long.class, TEST_USERNAME);
+    }
+
+    private HttpResponse<String> get(String instance, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(instance + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String instance, String path, Map<String, String> form) throws Exception {
+        String body = form.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return client.send(HttpRequest.newBuilder(URI.create(instance + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String csrfToken(HttpResponse<String> page) {
+        Matcher matcher = CSRF.matcher(page.body());
+        assertTrue(matcher.find(), "page should have a csrf token");
+        return matcher.group(1);
+    }
+
+    private static String location(HttpResponse<String> response) {
+        List<String> location = response.headers().allValues("Location");
+        return location.isEmpty() ? "" : location.get(0);
+    }
+}
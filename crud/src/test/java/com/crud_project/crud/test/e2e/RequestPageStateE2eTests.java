@@ -0,0 +1,193 @@
+package com.crud_project.crud.test.e2e;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.crud_project.crud.controller.CrudController;
+import com.crud_project.crud.controller.ModelKeys;
+import com.crud_project.crud.controller.SessionKeys;
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.dvo.WheelSpinResult;
+import com.crud_project.crud.service.SpinResultStore;
+import com.crud_project.crud.service.UserService;
+import com.crud_project.crud.test.config.DatabaseTestcontainersConfiguration;
+
+import jakarta.transaction.Transactional;
+
+// crud.page-state.mode=request, nothing but the login may end up in the session
+@SpringBootTest(properties = { "crud.page-state.mode=request", "crud.statement-budget.fail=true" })
+@AutoConfigureMockMvc
+@Transactional
+@Import(DatabaseTestcontainersConfiguration.class)
+@WithMockUser(username = RequestPageStateE2eTests.TEST_USERNAME)
+public class RequestPageStateE2eTests {
+
+    static final String TEST_USERNAME = "testuser";
+    private static final String TEST_PASSWORD = "TestPass123!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUpAuthenticatedUser() {
+        userService.registerUser(TEST_USERNAME, TEST_PASSWORD);
+        userService.createTestUsers(20);
+    }
+
+    @Test
+    @DisplayName("Request page should pass the page state on in the url")
+    public void testRequestPageRedirectsWithPageState() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        mockMvc.perform(MockMvcRequestBuilders.post("/crud/requestPage")
+                .session(session)
+                .param("pageNumber", "1")
+                .param("pageSize", "5")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(MockMvcResultMatchers.redirectedUrl("/crud?pageSize=5&pageNumber=1#user-table"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/crud/requestPage")
+                .session(session)
+                .param("pageSize", "5")
+                .param("afterId", "0")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(MockMvcResultMatchers.redirectedUrl("/crud?pageSize=5&afterId=0#user-table"));
+
+        assertNull(session.getAttribute(SessionKeys.CUR_USER_PAGE_STATE));
+    }
+
+    @Test
+    @DisplayName("Crud page should read the page state from the url")
+    public void testCrudPageReadsPageStateFromUrl() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/crud")
+                .session(session)
+                .param("pageSize", "5")
+                .param("afterId", "0"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.model().attributeExists(ModelKeys.REQ_PAGE_USER_TABLE))
+                .andReturn();
+
+        PageState pageState = (PageState) result.getModelAndView().getModel().get(ModelKeys.REQ_PAGE_STATE);
+        assertEquals(5, pageState.getSize());
+        assertTrue(pageState.isKeyset());
+        assertNull(session.getAttribute(SessionKeys.CUR_USER_PAGE_STATE));
+
+        // nothing is before id 0
+        mockMvc.perform(MockMvcRequestBuilders.get("/crud")
+                .param("beforeId", "0"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.model().attributeExists(ModelKeys.REQ_PAGE_USER_TABLE));
+
+        // an invalid page is left out rather than failing the page
+        mockMvc.perform(MockMvcRequestBuilders.get("/crud")
+                .param("pageSize", "101"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.model().attributeDoesNotExist(ModelKeys.REQ_PAGE_USER_TABLE));
+    }
+
+    @Test
+    @DisplayName("Spin results should be shown by id, only to the user who spun")
+    public void testSpinResultIsShownById() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        MvcResult spin = mockMvc.perform(MockMvcRequestBuilders.post("/crud/spinWheel")
+                .session(session)
+                .param("pageNumber", "0")
+                .param("pageSize", "5")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
+                .andExpect(MockMvcResultMatchers.flash().attributeCount(0))
+                .andReturn();
+        String redirect = spin.getResponse().getRedirectedUrl();
+        assertNotNull(redirect);
+        assertTrue(redirect.matches("/crud\\?pageSize=5&pageNumber=0&spin=[0-9a-f-]+#user-wheel"), redirect);
+        String url = redirect.substring(0, redirect.indexOf('#'));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(url).session(session))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.model().attributeExists(ModelKeys.WHEEL_WINNER))
+                .andExpect(MockMvcResultMatchers.model().attributeExists(ModelKeys.WHEEL_PARTICIPANTS));
+        // the login and its csrf token, no page state or flash attributes
+        assertEquals(Set.of(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                HttpSessionCsrfTokenRepository.class.getName() + ".CSRF_TOKEN"),
+                Set.copyOf(Collections.list(session.getAttributeNames())));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(url)
+                .with(SecurityMockMvcRequestPostProcessors.user("someoneelse")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.model().attributeDoesNotExist(ModelKeys.WHEEL_WINNER));
+    }
+
+    @Test
+    @DisplayName("Spin results should be kept where every instance finds them")
+    public void testSpinResultIsSharedBetweenInstances() throws Exception {
+        MvcResult spin = mockMvc.perform(MockMvcRequestBuilders.post("/crud/spinWheel")
+                .param("pageNumber", "0")
+                .param("pageSize", "5")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
+                .andReturn();
+        String redirect = spin.getResponse().getRedirectedUrl();
+        assertNotNull(redirect);
+        String id = redirect.substring(redirect.indexOf("spin=") + "spin=".length(), redirect.indexOf('#'));
+
+        // another instance's store on the same database
+        SpinResultStore otherInstance = new SpinResultStore(jdbcTemplate, 60, 1000);
+        WheelSpinResult result = otherInstance.get(TEST_USERNAME, id);
+        assertNotNull(result);
+        assertTrue(result.getParticipants().contains(TEST_USERNAME));
+        assertTrue(result.getParticipants().contains(result.getWinnerName()));
+        assertNull(otherInstance.get("someoneelse", id));
+        assertNull(otherInstance.get(TEST_USERNAME, "not-an-id"));
+    }
+
+    @Test
+    @DisplayName("Wheel errors should be passed in the url and shown")
+    public void testWheelErrorIsPassedInUrl() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        mockMvc.perform(MockMvcRequestBuilders.post("/crud/spinWheel")
+                .session(session)
+                .param("pageSize", "101")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
+                .andExpect(MockMvcResultMatchers.flash().attributeCount(0))
+                .andExpect(MockMvcResultMatchers.redirectedUrl(
+                        "/crud?wheelError=" + CrudController.WHEEL_ERROR_NO_PAGE + "#request-page-form-container"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/crud")
+                .session(session)
+                .param(CrudController.WHEEL_ERROR, CrudController.WHEEL_ERROR_NO_PAGE))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string(
+                        containsString("Page state not found")));
+        assertNull(session.getAttribute(SessionKeys.CUR_USER_PAGE_STATE));
+    }
+}
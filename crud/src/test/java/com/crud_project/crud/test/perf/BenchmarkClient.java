@@ -0,0 +1,139 @@
+package com.crud_project.crud.test.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.crud_project.crud.controller.CrudController;
+
+/**
+ * One simulated browser, keeps its own session cookie and the last CSRF token
+ * it was served. Many share the same HttpClient, which handles no cookies
+ * itself. Not thread safe, use one per load thread
+ */
+public class BenchmarkClient {
+
+    private static final Pattern CSRF_INPUT = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+    private static final Pattern SESSION_COOKIE = Pattern.compile("JSESSIONID=([^;]+)");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private String sessionId;
+    private String csrfToken;
+
+    public BenchmarkClient(HttpClient httpClient, String baseUrl) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+    }
+
+    public static HttpClient newHttpClient() {
+        return HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Forgets the session, the next request starts a new one
+     */
+    public void reset() {
+        sessionId = null;
+        csrfToken = null;
+    }
+
+    public HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(request(path).GET().build());
+    }
+
+    /**
+     * Posts form fields plus the last CSRF token seen
+     */
+    public HttpResponse<String> post(String path, Map<String, String> fields)
+            throws IOException, InterruptedException {
+        Map<String, String> form = new LinkedHashMap<>(fields);
+        if (csrfToken != null) {
+            form.put("_csrf", csrfToken);
+        }
+        String body = form.entrySet().stream()
+                .map(field -> encode(field.getKey()) + "=" + encode(field.getValue()))
+                .collect(Collectors.joining("&"));
+        return send(request(path)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    /**
+     * Form login, leaves the client with an authenticated session and the
+     * token of the page it lands on
+     *
+     * @return true if the login was accepted
+     */
+    public boolean login(String userName, String password) throws IOException, InterruptedException {
+        reset();
+        get("/auth/login");
+        HttpResponse<String> response = post("/auth/login", Map.of("username", userName, "password", password));
+        if (!isLoginAccepted(response)) {
+            return false;
+        }
+        // the token changes on login
+        get("/crud");
+        return true;
+    }
+
+    public static boolean isLoginAccepted(HttpResponse<String> response) {
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location").map(location -> location.endsWith("/crud"))
+                        .orElse(false);
+    }
+
+    /**
+     * @return true if the wheel was spun, a rejected spin redirects with a
+     *         wheelError instead
+     */
+    public static boolean isSpinAccepted(HttpResponse<String> response) {
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location")
+                        .map(location -> location.endsWith("#user-wheel")
+                                && !location.contains(CrudController.WHEEL_ERROR + "="))
+                        .orElse(false);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+        if (sessionId != null) {
+            builder.header("Cookie", "JSESSIONID=" + sessionId);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        for (String cookie : response.headers().allValues("Set-Cookie")) {
+            Matcher matcher = SESSION_COOKIE.matcher(cookie);
+            if (matcher.find()) {
+                sessionId = matcher.group(1);
+            }
+        }
+        Matcher matcher = CSRF_INPUT.matcher(response.body());
+        if (matcher.find()) {
+            csrfToken = matcher.group(1);
+        }
+        return response;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
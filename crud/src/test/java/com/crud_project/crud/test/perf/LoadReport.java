@@ -0,0 +1,163 @@
+package com.crud_project.crud.test.perf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import com.crud_project.crud.test.perf.LoadTestHarness.EndpointStats;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Result of one LoadTestHarness run. Written as JSON with the run config,
+ * totals and per endpoint throughput, error rate and latency percentiles in
+ * ms. Each endpoint also carries its full histogram, compressed and base64
+ * encoded, so runs can be merged or replotted with HdrHistogram tools later
+ */
+public class LoadReport {
+
+    private static final JsonMapper MAPPER = JsonMapper.builder()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .build();
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final String[] PERCENTILE_KEYS = { "p50", "p90", "p99", "p999" };
+
+    private final Instant startedAt;
+    private final Map<String, Object> report;
+
+    LoadReport(Instant startedAt, Map<String, Object> config, double seconds,
+            Map<String, EndpointStats.Interval> intervals) {
+        this.startedAt = startedAt;
+
+        long requests = 0;
+        long errors = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, EndpointStats.Interval> entry : intervals.entrySet()) {
+            Histogram histogram = entry.getValue().histogram();
+            long endpointErrors = entry.getValue().errors();
+            requests += histogram.getTotalCount() + endpointErrors;
+            errors += endpointErrors;
+            endpoints.put(entry.getKey(), endpoint(histogram, endpointErrors, seconds));
+        }
+
+        report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("config", config);
+        report.put("measuredSeconds", seconds);
+        report.put("total", counts(requests, errors, seconds));
+        report.put("endpoints", endpoints);
+    }
+
+    private static Map<String, Object> counts(long requests, long errors, double seconds) {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("requests", requests);
+        counts.put("errors", errors);
+        counts.put("errorRate", requests == 0 ? 0 : (double) errors / requests);
+        counts.put("throughput", (requests - errors) / seconds);
+        return counts;
+    }
+
+    private static Map<String, Object> endpoint(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> endpoint = counts(histogram.getTotalCount() + errors, errors, seconds);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        if (histogram.getTotalCount() > 0) {
+            latency.put("min", millis(histogram.getMinValue()));
+            latency.put("mean", histogram.getMean() / 1000);
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                latency.put(PERCENTILE_KEYS[i], millis(histogram.getValueAtPercentile(PERCENTILES[i])));
+            }
+            latency.put("max", millis(histogram.getMaxValue()));
+        }
+        endpoint.put("latencyMs", latency);
+
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        endpoint.put("histogram", Base64.getEncoder().encodeToString(
+                Arrays.copyOf(buffer.array(), length)));
+        return endpoint;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * @return start time for file names, e.g. 20240131-235959
+     */
+    public String timestamp() {
+        return FILE_TIMESTAMP.format(startedAt);
+    }
+
+    public void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        MAPPER.writeValue(path.toFile(), report);
+    }
+
+    public static JsonNode read(Path path) {
+        return MAPPER.readTree(path.toFile());
+    }
+
+    public void print() {
+        JsonNode json = MAPPER.valueToTree(report);
+        System.out.printf("%n%s users for %.0fs%n", json.path("config").path("users").asText(),
+                json.path("measuredSeconds").asDouble(Double.NaN));
+        System.out.printf("%-24s %10s %8s %8s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, JsonNode> endpoint : json.path("endpoints").properties()) {
+            JsonNode stats = endpoint.getValue();
+            JsonNode latency = stats.path("latencyMs");
+            System.out.printf("%-24s %10d %8d %8.1f %10.2f %10.2f %10.2f %10.2f%n", endpoint.getKey(),
+                    stats.path("requests").asLong(0), stats.path("errors").asLong(0),
+                    stats.path("throughput").asDouble(Double.NaN), latency.path("p50").asDouble(Double.NaN),
+                    latency.path("p90").asDouble(Double.NaN), latency.path("p99").asDouble(Double.NaN), latency.path("max").asDouble(Double.NaN));
+        }
+        JsonNode total = json.path("total");
+        System.out.printf("%-24s %10d %8d %8.1f%n", "total", total.path("requests").asLong(0),
+                total.path("errors").asLong(0), total.path("throughput").asDouble(Double.NaN));
+    }
+
+    /**
+     * Prints throughput, p99 and error rate of this run next to the
+     * baseline's for every endpoint both have
+     */
+    public void compareTo(JsonNode baseline) {
+        JsonNode json = MAPPER.valueToTree(report);
+        System.out.printf("%nCompared to the run started %s%n", baseline.path("startedAt").asText());
+        System.out.printf("%-24s %20s %20s %20s%n", "endpoint", "req/s", "p99 ms", "error rate");
+        for (Map.Entry<String, JsonNode> endpoint : json.path("endpoints").properties()) {
+            JsonNode before = baseline.path("endpoints").path(endpoint.getKey());
+            if (before.isMissingNode()) {
+                continue;
+            }
+            JsonNode after = endpoint.getValue();
+            System.out.printf("%-24s %20s %20s %20s%n", endpoint.getKey(),
+                    change(before.path("throughput").asDouble(Double.NaN), after.path("throughput").asDouble(Double.NaN)),
+                    change(before.path("latencyMs").path("p99").asDouble(Double.NaN),
+                            after.path("latencyMs").path("p99").asDouble(Double.NaN)),
+                    change(before.path("errorRate").asDouble(Double.NaN), after.path("errorRate").asDouble(Double.NaN)));
+        }
+    }
+
+    private static String change(double before, double after) {
+        if (before == 0) {
+            return String.format("%.2f -> %.2f", before, after);
+        }
+        return String.format("%.2f -> %.2f (%+.0f%%)", before, after, (after - before) / before * 100);
+    }
+}
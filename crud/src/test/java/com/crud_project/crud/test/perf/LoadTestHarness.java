@@ -0,0 +1,448 @@
+package com.crud_project.crud.test.perf;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.crud_project.crud.CrudApplication;
+import com.crud_project.crud.configuration.RandomConfig;
+import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.test.config.DatabaseTestcontainersConfiguration;
+
+/**
+ * Closed loop load generator. Each virtual user registers a fresh account,
+ * logs in, lands on /crud and then runs a weighted mix of /crud,
+ * /crud/requestPage and /crud/spinWheel with think time between steps,
+ * following POST redirects like a browser would. After session-iterations
+ * steps, or once it lost a spin and is dead, it starts over as a new user, so
+ * registration and login stay part of the traffic. Spins redirected with a
+ * wheelError are errors, not successes.
+ *
+ * Latencies of successful requests go into an HdrHistogram per endpoint,
+ * anything after warmup-seconds is measured. The report is written as JSON
+ * (target/load-report-<time>.json or loadtest.report) and compared against
+ * loadtest.baseline when given.
+ *
+ * Boots the app against a Testcontainers Postgres, or the datasource in
+ * application.properties with -Dloadtest.testcontainers=false, or drives an
+ * already running instance with -Dloadtest.base-url. Other settings:
+ * loadtest.users (50), loadtest.ramp-up-seconds (5), loadtest.warmup-seconds
+ * (10), loadtest.seconds (60), loadtest.think-time-ms (100),
+ * loadtest.session-iterations (20), loadtest.mix
+ * (crud=50,requestPage=30,spinWheel=20), loadtest.seed (unset). A seed
+ * replays the same virtual user choices and, when the harness boots the app,
+ * runs it with crud.random.mode=seeded so its draws repeat too
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.crud_project.crud.test.perf.LoadTestHarness
+ */
+public class LoadTestHarness {
+
+    private static final String USER_PREFIX = "load_";
+    private static final String PASSWORD = "LoadPass123!";
+    private static final int DELETE_CHUNK_SIZE = 5000;
+    private static final int[] PAGE_SIZES = { 5, 10, 25, 50 };
+    private static final int MAX_PAGE = 10;
+    private static final String GRAVESTONE = "user-gravestone";
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 50);
+    private static final long RAMP_UP_SECONDS = Long.getLong("loadtest.ramp-up-seconds", 5);
+    private static final long WARMUP_SECONDS = Long.getLong("loadtest.warmup-seconds", 10);
+    private static final long SECONDS = Long.getLong("loadtest.seconds", 60);
+    private static final long THINK_TIME_MS = Long.getLong("loadtest.think-time-ms", 100);
+    private static final int SESSION_ITERATIONS = Integer.getInteger("loadtest.session-iterations", 20);
+    private static final String MIX = System.getProperty("loadtest.mix", "crud=50,requestPage=30,spinWheel=20");
+    private static final String BASE_URL = System.getProperty("loadtest.base-url");
+    private static final boolean TESTCONTAINERS = Boolean
+            .parseBoolean(System.getProperty("loadtest.testcontainers", "true"));
+    private static final String REPORT = System.getProperty("loadtest.report");
+    private static final String BASELINE = System.getProperty("loadtest.baseline");
+    private static final Long SEED = Long.getLong("loadtest.seed");
+
+    enum Endpoint {
+        REGISTER("POST /auth/register"),
+        LOGIN("POST /auth/login"),
+        CRUD("GET /crud"),
+        REQUEST_PAGE("POST /crud/requestPage"),
+        SPIN_WHEEL("POST /crud/spinWheel");
+
+        final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Steps a logged in user picks from, keyed by their name in loadtest.mix
+     */
+    enum Action {
+        CRUD("crud"),
+        REQUEST_PAGE("requestPage"),
+        SPIN_WHEEL("spinWheel");
+
+        private final String key;
+
+        Action(String key) {
+            this.key = key;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        HttpResponse<String> send() throws IOException, InterruptedException;
+    }
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final Queue<String> userNames = new ConcurrentLinkedQueue<>();
+    private final Action[] actions;
+    private final int[] cumulativeWeights;
+    private final String runId = Long.toString(System.currentTimeMillis() % 60_466_176L, 36);
+    private volatile boolean running = true;
+
+    private LoadTestHarness(Map<Action, Integer> mix) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        actions = mix.keySet().toArray(new Action[0]);
+        cumulativeWeights = new int[actions.length];
+        int total = 0;
+        for (int i = 0; i < actions.length; i++) {
+            total += mix.get(actions[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestHarness harness = new LoadTestHarness(parseMix(MIX));
+        ConfigurableApplicationContext app = BASE_URL == null ? start() : null;
+        try {
+            String baseUrl = app == null
+                    ? BASE_URL
+                    : "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            LoadReport report = harness.run(baseUrl);
+
+            Path path = Path.of(REPORT != null ? REPORT : "target/load-report-" + report.timestamp() + ".json");
+            report.write(path);
+            report.print();
+            System.out.println("Report written to " + path.toAbsolutePath());
+            if (BASELINE != null) {
+                report.compareTo(LoadReport.read(Path.of(BASELINE)));
+            }
+        } finally {
+            if (app != null) {
+                harness.deleteUsers(app);
+                app.close();
+            } else {
+                System.out.println(harness.userNames.size() + " users named " + USER_PREFIX + harness.runId
+                        + "_* were left on " + BASE_URL);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        String[] args = {
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                // every virtual user comes from localhost
+                "--crud.rate-limit.requests-per-minute=" + Integer.MAX_VALUE / 2,
+                "--crud.rate-limit.burst=" + Integer.MAX_VALUE / 2,
+                // measure queueing for hashing threads, not rejections
+                "--crud.password-hashing.queue-capacity=" + USERS * 2,
+                "--crud.password-hashing.timeout-ms=60000",
+                "--crud.random.mode=" + (SEED != null ? RandomConfig.SEEDED : RandomConfig.THREAD_LOCAL),
+                "--crud.random.seed=" + (SEED != null ? SEED : 0)
+        };
+        if (TESTCONTAINERS) {
+            return SpringApplication.from(CrudApplication::main)
+                    .with(DatabaseTestcontainersConfiguration.class)
+                    .run(args)
+                    .getApplicationContext();
+        }
+        return SpringApplication.run(CrudApplication.class, args);
+    }
+
+    /**
+     * @param mix comma separated action=weight pairs, e.g. crud=50,spinWheel=20
+     */
+    static Map<Action, Integer> parseMix(String mix) {
+        Map<Action, Integer> weights = new LinkedHashMap<>();
+        for (String pair : mix.split(",")) {
+            String[] parts = pair.trim().split("=");
+            Action action = null;
+            for (Action candidate : Action.values()) {
+                if (candidate.key.equals(parts[0].trim())) {
+                    action = candidate;
+                }
+            }
+            if (action == null || parts.length != 2) {
+                throw new IllegalArgumentException("Bad loadtest.mix entry: " + pair);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(action, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights: " + mix);
+        }
+        return weights;
+    }
+
+    private LoadReport run(String baseUrl) throws InterruptedException {
+        HttpClient httpClient = BenchmarkClient.newHttpClient();
+        long startNanos = System.nanoTime();
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(RAMP_UP_SECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        Instant startedAt = Instant.now();
+        try {
+            for (int i = 0; i < USERS; i++) {
+                int index = i;
+                long startDelay = rampUpNanos * index / USERS;
+                executor.submit(() -> {
+                    TimeUnit.NANOSECONDS.sleep(startDelay);
+                    virtualUser(index, new BenchmarkClient(httpClient, baseUrl));
+                    return null;
+                });
+            }
+
+            sleepUntil(startNanos + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS));
+            stats.values().forEach(EndpointStats::sample);
+            long measureStart = System.nanoTime();
+            sleepUntil(measureStart + TimeUnit.SECONDS.toNanos(SECONDS));
+            double measuredSeconds = (System.nanoTime() - measureStart) / 1e9;
+
+            Map<String, EndpointStats.Interval> intervals = new LinkedHashMap<>();
+            for (Endpoint endpoint : Endpoint.values()) {
+                intervals.put(endpoint.label, stats.get(endpoint).sample());
+            }
+            return new LoadReport(startedAt, config(baseUrl), measuredSeconds, intervals);
+        } finally {
+            running = false;
+            executor.shutdown();
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private Map<String, Object> config(String baseUrl) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("baseUrl", BASE_URL != null ? baseUrl : TESTCONTAINERS ? "testcontainers" : "datasource");
+        config.put("users", USERS);
+        config.put("rampUpSeconds", RAMP_UP_SECONDS);
+        config.put("warmupSeconds", WARMUP_SECONDS);
+        config.put("seconds", SECONDS);
+        config.put("thinkTimeMs", THINK_TIME_MS);
+        config.put("sessionIterations", SESSION_ITERATIONS);
+        config.put("mix", MIX);
+        config.put("seed", SEED);
+        config.put("javaVersion", Runtime.version().toString());
+        config.put("processors", Runtime.getRuntime().availableProcessors());
+        return config;
+    }
+
+    /**
+     * Runs sessions back to back until the harness stops, each as a newly
+     * registered user
+     */
+    private void virtualUser(int index, BenchmarkClient client) throws InterruptedException {
+        SplittableRandom random = SEED != null ? new SplittableRandom(SEED + index) : new SplittableRandom();
+        for (int session = 0; running; session++) {
+            String userName = USER_PREFIX + runId + "_" + index + "_" + session;
+            try {
+                if (!signUp(client, userName)) {
+                    think(random);
+                    continue;
+                }
+                boolean alive = true;
+                for (int i = 0; i < SESSION_ITERATIONS && alive && running; i++) {
+                    think(random);
+                    alive = step(client, random);
+                }
+            } catch (IOException e) {
+                // counted where it happened, start over with a new user
+            }
+        }
+    }
+
+    /**
+     * register, login, then the landing page
+     */
+    private boolean signUp(BenchmarkClient client, String userName) throws IOException, InterruptedException {
+        client.reset();
+        client.get("/auth/register");
+        boolean registered = timed(Endpoint.REGISTER,
+                () -> client.post("/auth/register", Map.of("username", userName, "password", PASSWORD)),
+                response -> isRedirectTo(response, "/auth/login")) != null;
+        if (!registered) {
+            return false;
+        }
+        userNames.add(userName);
+
+        client.get("/auth/login");
+        boolean loggedIn = timed(Endpoint.LOGIN,
+                () -> client.post("/auth/login", Map.of("username", userName, "password", PASSWORD)),
+                BenchmarkClient::isLoginAccepted) != null;
+        return loggedIn && getCrud(client) != null;
+    }
+
+    /**
+     * @return false once the user lost a spin and is only shown their
+     *         gravestone, like a browser they start over as someone new
+     */
+    private boolean step(BenchmarkClient client, SplittableRandom random) throws IOException, InterruptedException {
+        switch (pick(random)) {
+            case CRUD -> getCrud(client);
+            case REQUEST_PAGE -> {
+                Map<String, String> form = new LinkedHashMap<>();
+                form.put("pageSize", String.valueOf(PAGE_SIZES[random.nextInt(PAGE_SIZES.length)]));
+                if (random.nextInt(4) == 0) {
+                    form.put("afterId", "0");
+                } else {
+                    form.put("pageNumber", String.valueOf(random.nextInt(MAX_PAGE)));
+                }
+                if (timed(Endpoint.REQUEST_PAGE, () -> client.post("/crud/requestPage", form),
+                        response -> isRedirectTo(response, "/crud#user-table")) != null) {
+                    getCrud(client);
+                }
+            }
+            case SPIN_WHEEL -> {
+                // a rejected spin redirects too, but with a wheelError
+                if (timed(Endpoint.SPIN_WHEEL, () -> client.post("/crud/spinWheel", Map.of()),
+                        BenchmarkClient::isSpinAccepted) != null) {
+                    HttpResponse<String> crud = getCrud(client);
+                    return crud == null || !crud.body().contains(GRAVESTONE);
+                }
+            }
+        }
+        return true;
+    }
+
+    private HttpResponse<String> getCrud(BenchmarkClient client) throws IOException, InterruptedException {
+        return timed(Endpoint.CRUD, () -> client.get("/crud"), response -> response.statusCode() == 200);
+    }
+
+    /**
+     * Records the latency if ok accepts the response, otherwise counts an
+     * error, as it does for an IOException which is rethrown
+     *
+     * @return the response || null if it wasn't ok
+     */
+    private HttpResponse<String> timed(Endpoint endpoint, Request request, Predicate<HttpResponse<String>> ok)
+            throws IOException, InterruptedException {
+        EndpointStats endpointStats = stats.get(endpoint);
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = request.send();
+        } catch (IOException e) {
+            endpointStats.error();
+            throw e;
+        }
+        long latency = System.nanoTime() - start;
+        if (!ok.test(response)) {
+            endpointStats.error();
+            return null;
+        }
+        endpointStats.record(latency);
+        return response;
+    }
+
+    private Action pick(SplittableRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return actions[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Uniform in [0, 2 * think time) so users drift out of lockstep
+     */
+    private static void think(SplittableRandom random) throws InterruptedException {
+        if (THINK_TIME_MS > 0) {
+            Thread.sleep(random.nextLong(THINK_TIME_MS * 2));
+        }
+    }
+
+    private static boolean isRedirectTo(HttpResponse<String> response, String target) {
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location").map(location -> location.endsWith(target))
+                        .orElse(false);
+    }
+
+    private static void sleepUntil(long nanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanos - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private void deleteUsers(ConfigurableApplicationContext app) {
+        UserRepo userRepo = app.getBean(UserRepo.class);
+        List<String> chunk = new ArrayList<>(DELETE_CHUNK_SIZE);
+        for (String userName : userNames) {
+            chunk.add(userName);
+            if (chunk.size() == DELETE_CHUNK_SIZE) {
+                userRepo.deleteByUserNames(chunk.toArray(new String[0]));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            userRepo.deleteByUserNames(chunk.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Latencies of successful requests in micros plus an error count, both
+     * safe to write from many threads and sampled by interval
+     */
+    static final class EndpointStats {
+
+        private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+        private final Recorder recorder = new Recorder(HIGHEST_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        record Interval(Histogram histogram, long errors) {
+        }
+
+        void record(long latencyNanos) {
+            recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_MICROS));
+        }
+
+        void error() {
+            errors.increment();
+        }
+
+        /**
+         * @return everything recorded since the last sample
+         */
+        Interval sample() {
+            return new Interval(recorder.getIntervalHistogram(), errors.sumThenReset());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.crud_project.crud.test.perf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.crud_project.crud.CrudApplication;
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.dvo.WheelSpinResult;
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.service.SpinWheelExecutor;
+import com.crud_project.crud.service.SpinWheelExecutor.ConflictStrategy;
+import com.crud_project.crud.service.UserService;
+import com.crud_project.crud.test.config.DatabaseTestcontainersConfiguration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Stresses wheel spins that overlap as much as they can, every thread spins
+ * as its own user of a small pool against the page holding the whole pool,
+ * once per round with all threads released together. Users are revived
+ * between rounds. Prints successful spins/s, rejected spins (the spinner was
+ * already dead), spins that failed after the strategy gave up, and retries
+ * for each SpinWheelExecutor.ConflictStrategy.
+ *
+ * Runs against the datasource in application.properties, or a Testcontainers
+ * Postgres with -Dbenchmark.testcontainers=true. Other settings:
+ * benchmark.threads (32), benchmark.pool (32), benchmark.rounds (200),
+ * benchmark.max-attempts (3), benchmark.backoff-ms (10)
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.crud_project.crud.test.perf.SpinConflictBenchmark
+ */
+public class SpinConflictBenchmark {
+
+    private static final String USER_PREFIX = "conflict_";
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int POOL = Integer.getInteger("benchmark.pool", 32);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 200);
+    private static final int MAX_ATTEMPTS = Integer.getInteger("benchmark.max-attempts", 3);
+    private static final long BACKOFF_MS = Long.getLong("benchmark.backoff-ms", 10);
+    private static final boolean TESTCONTAINERS = Boolean.getBoolean("benchmark.testcontainers");
+
+    public static void main(String[] args) throws Exception {
+        List<String> report = new ArrayList<>();
+        try (ConfigurableApplicationContext app = start()) {
+            List<String> userNames = seedUsers(app);
+            PageState pool = poolPage(app, userNames);
+            for (ConflictStrategy strategy : ConflictStrategy.values()) {
+                SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+                SpinWheelExecutor executor = new SpinWheelExecutor(app.getBean(UserService.class),
+                        new SplittableRandom(), meterRegistry, strategy.name(), MAX_ATTEMPTS, BACKOFF_MS);
+                // warm up the statements and the pool, then measure
+                run(app, executor, userNames, pool, Math.max(1, ROUNDS / 10));
+                double warmupRetries = retries(meterRegistry);
+                Counts counts = run(app, executor, userNames, pool, ROUNDS);
+                report.add(String.format("%-13s %10.1f %8d %9d %7d %8.0f %8d",
+                        strategy.name().toLowerCase().replace('_', '-'),
+                        counts.succeeded.sum() / (counts.nanos / 1e9), counts.succeeded.sum(),
+                        counts.rejected.sum(), counts.failed.sum(), retries(meterRegistry) - warmupRetries,
+                        counts.errors.sum()));
+            }
+            deleteUsers(app, userNames);
+        }
+
+        System.out.printf("%n%d threads spinning over %d users, %d rounds%n", THREADS, POOL, ROUNDS);
+        System.out.printf("%-13s %10s %8s %9s %7s %8s %8s%n", "strategy", "spins/s", "spins", "rejected",
+                "failed", "retries", "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static double retries(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.counter("wheel.spin.retries").count();
+    }
+
+    private static ConfigurableApplicationContext start() {
+        String[] args = {
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, THREADS)
+        };
+        if (TESTCONTAINERS) {
+            return SpringApplication.from(CrudApplication::main)
+                    .with(DatabaseTestcontainersConfiguration.class)
+                    .run(args)
+                    .getApplicationContext();
+        }
+        return SpringApplication.run(CrudApplication.class, args);
+    }
+
+    private static List<String> seedUsers(ConfigurableApplicationContext app) {
+        List<String> userNames = new ArrayList<>(POOL);
+        List<User> users = new ArrayList<>(POOL);
+        for (int i = 0; i < POOL; i++) {
+            String userName = USER_PREFIX + i;
+            userNames.add(userName);
+            users.add(User.builder().userName(userName).hashedPassword("unused").build());
+        }
+        deleteUsers(app, userNames);
+        app.getBean(UserService.class).createUsersInBulk(users);
+        return Collections.unmodifiableList(userNames);
+    }
+
+    private static void deleteUsers(ConfigurableApplicationContext app, List<String> userNames) {
+        app.getBean(UserRepo.class).deleteByUserNames(userNames.toArray(String[]::new));
+    }
+
+    /**
+     * @return the keyset page holding exactly the pool, ids are contiguous as
+     *         the pool was inserted in one batch
+     */
+    private static PageState poolPage(ConfigurableApplicationContext app, List<String> userNames) {
+        int firstId = app.getBean(UserRepo.class).findAllByUserNameIn(userNames).stream()
+                .mapToInt(User::getId)
+                .min()
+                .orElseThrow();
+        return PageState.builder().size(POOL).cursor(firstId - 1).build();
+    }
+
+    private static Counts run(ConfigurableApplicationContext app, SpinWheelExecutor executor,
+            List<String> userNames, PageState pool, int rounds) throws Exception {
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        Counts counts = new Counts();
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                jdbcTemplate.update("UPDATE users SET dead = false WHERE user_name LIKE ?", USER_PREFIX + "%");
+                CyclicBarrier start = new CyclicBarrier(THREADS);
+                List<Future<?>> spins = new ArrayList<>(THREADS);
+                long roundStart = System.nanoTime();
+                for (int i = 0; i < THREADS; i++) {
+                    String userName = userNames.get(i % userNames.size());
+                    spins.add(threads.submit(() -> {
+                        start.await();
+                        counts.spin(executor, userName, pool);
+                        return null;
+                    }));
+                }
+                for (Future<?> spin : spins) {
+                    spin.get();
+                }
+                counts.nanos += System.nanoTime() - roundStart;
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        return counts;
+    }
+
+    private static final class Counts {
+
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private long nanos;
+
+        private void spin(SpinWheelExecutor executor, String userName, PageState pool) {
+            try {
+                WheelSpinResult result = executor.spin(userName, pool, false);
+                (result != null ? succeeded : rejected).increment();
+            } catch (ConcurrencyFailureException e) {
+                failed.increment();
+            } catch (RuntimeException e) {
+                System.err.println("Spin by " + userName + " failed: " + e);
+                errors.increment();
+            }
+        }
+    }
+}
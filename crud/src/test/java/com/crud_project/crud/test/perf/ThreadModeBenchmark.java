@@ -0,0 +1,260 @@
+package com.crud_project.crud.test.perf;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.crud_project.crud.CrudApplication;
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.event.UserChangedEvent;
+import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.service.UserService;
+import com.crud_project.crud.test.config.DatabaseTestcontainersConfiguration;
+
+/**
+ * Boots the app once with platform request threads and once with virtual
+ * threads (Java 21+ only) and drives /auth/login, /crud and /crud/spinWheel
+ * with many concurrent sessions, printing throughput and p50/p99 latency.
+ * Only spins that happened are timed, a rejected one is an error and its
+ * spinner is revived before the next.
+ *
+ * Runs against the datasource in application.properties, or a Testcontainers
+ * Postgres with -Dbenchmark.testcontainers=true. Other settings:
+ * benchmark.clients (200), benchmark.warmup-seconds (5), benchmark.seconds (20)
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.crud_project.crud.test.perf.ThreadModeBenchmark
+ */
+public class ThreadModeBenchmark {
+
+    private static final String USER_PREFIX = "bench_";
+    private static final String PASSWORD = "BenchPass123!";
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 200);
+    private static final long WARMUP_SECONDS = Long.getLong("benchmark.warmup-seconds", 5);
+    private static final long SECONDS = Long.getLong("benchmark.seconds", 20);
+    private static final boolean TESTCONTAINERS = Boolean.getBoolean("benchmark.testcontainers");
+
+    enum Endpoint {
+        LOGIN("/auth/login"),
+        CRUD("/crud"),
+        SPIN_WHEEL("/crud/spinWheel");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Boolean> modes = new ArrayList<>(List.of(false));
+        if (Runtime.version().feature() >= 21) {
+            modes.add(true);
+        } else {
+            System.out.println("Java " + Runtime.version().feature()
+                    + " has no virtual threads, only benchmarking platform threads");
+        }
+
+        List<String> report = new ArrayList<>();
+        for (boolean virtual : modes) {
+            try (ConfigurableApplicationContext app = start(virtual)) {
+                String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+                for (Endpoint endpoint : Endpoint.values()) {
+                    run(app, endpoint, baseUrl, seedUsers(app), WARMUP_SECONDS);
+                    // spins kill users, start the measurement with everyone alive
+                    Result result = run(app, endpoint, baseUrl, seedUsers(app), SECONDS);
+                    report.add(String.format("%-9s %-16s %10.1f %10.2f %10.2f %8d",
+                            virtual ? "virtual" : "platform", endpoint.path, result.throughput(),
+                            result.percentileMillis(50), result.percentileMillis(99), result.errors));
+                }
+                deleteUsers(app);
+            }
+        }
+
+        System.out.printf("%n%d clients, %ds per endpoint%n", CLIENTS, SECONDS);
+        System.out.printf("%-9s %-16s %10s %10s %10s %8s%n", "threads", "endpoint", "req/s", "p50 ms", "p99 ms",
+                "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        String[] args = {
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.jpa.show-sql=false",
+                // every client comes from localhost
+                "--crud.rate-limit.requests-per-minute=" + Integer.MAX_VALUE / 2,
+                "--crud.rate-limit.burst=" + Integer.MAX_VALUE / 2,
+                // measure queueing for hashing threads, not rejections
+                "--crud.password-hashing.queue-capacity=" + CLIENTS * 2,
+                "--crud.password-hashing.timeout-ms=60000",
+                "--spring.datasource.hikari.maximum-pool-size=20"
+        };
+        if (TESTCONTAINERS) {
+            return SpringApplication.from(CrudApplication::main)
+                    .with(DatabaseTestcontainersConfiguration.class)
+                    .run(args)
+                    .getApplicationContext();
+        }
+        return SpringApplication.run(CrudApplication.class, args);
+    }
+
+    /**
+     * Recreates one live user per client, all with the same password
+     */
+    private static List<String> seedUsers(ConfigurableApplicationContext app) {
+        List<String> userNames = new ArrayList<>(CLIENTS);
+        List<User> users = new ArrayList<>(CLIENTS);
+        String hashedPassword = new BCryptPasswordEncoder().encode(PASSWORD);
+        for (int i = 0; i < CLIENTS; i++) {
+            String userName = USER_PREFIX + i;
+            userNames.add(userName);
+            users.add(User.builder().userName(userName).hashedPassword(hashedPassword).build());
+        }
+        deleteUsers(app);
+        app.getBean(UserService.class).createUsersInBulk(users);
+        return userNames;
+    }
+
+    private static void deleteUsers(ConfigurableApplicationContext app) {
+        String[] userNames = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            userNames[i] = USER_PREFIX + i;
+        }
+        app.getBean(UserRepo.class).deleteByUserNames(userNames);
+    }
+
+    /**
+     * Brings a spinner who lost back to life, so the run keeps measuring spins
+     * rather than rejections
+     */
+    private static void revive(ConfigurableApplicationContext app, String userName) {
+        app.getBean(JdbcTemplate.class).query(
+                "UPDATE users SET dead = false WHERE user_name = ? RETURNING aw_cruds_performed",
+                (rs, rowNum) -> rs.getInt(1), userName)
+                .forEach(awCrudsPerformed -> app.publishEvent(
+                        UserChangedEvent.updated(userName, awCrudsPerformed, false)));
+    }
+
+    private static Result run(ConfigurableApplicationContext app, Endpoint endpoint, String baseUrl,
+            List<String> userNames, long seconds) throws Exception {
+        HttpClient httpClient = BenchmarkClient.newHttpClient();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Samples>> futures = new ArrayList<>();
+            for (String userName : userNames) {
+                futures.add(executor.submit(() -> drive(
+                        app, endpoint, new BenchmarkClient(httpClient, baseUrl), userName, deadline)));
+            }
+            Samples all = new Samples();
+            for (Future<Samples> future : futures) {
+                all.addAll(future.get());
+            }
+            return new Result(all, seconds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Samples drive(ConfigurableApplicationContext app, Endpoint endpoint, BenchmarkClient client,
+            String userName, long deadline) throws Exception {
+        Samples samples = new Samples();
+        if (endpoint != Endpoint.LOGIN && !client.login(userName, PASSWORD)) {
+            samples.errors++;
+            return samples;
+        }
+        while (System.nanoTime() < deadline) {
+            if (endpoint == Endpoint.LOGIN) {
+                client.reset();
+                client.get("/auth/login");
+            }
+            long start = System.nanoTime();
+            HttpResponse<String> response = switch (endpoint) {
+                case LOGIN -> client.post(endpoint.path, Map.of("username", userName, "password", PASSWORD));
+                case CRUD -> client.get(endpoint.path);
+                case SPIN_WHEEL -> client.post(endpoint.path, Map.of());
+            };
+            long latency = System.nanoTime() - start;
+
+            boolean ok = switch (endpoint) {
+                case LOGIN -> BenchmarkClient.isLoginAccepted(response);
+                case CRUD -> response.statusCode() == 200;
+                case SPIN_WHEEL -> BenchmarkClient.isSpinAccepted(response);
+            };
+            if (ok) {
+                samples.add(latency);
+            } else {
+                samples.errors++;
+                if (endpoint == Endpoint.SPIN_WHEEL) {
+                    // most likely the spinner won its own spin, outside the timing
+                    revive(app, userName);
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Latencies in nanos, grown by doubling so recording doesn't box
+     */
+    private static final class Samples {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        private void add(long latency) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latency;
+        }
+
+        private void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i]);
+            }
+            errors += other.errors;
+        }
+    }
+
+    private static final class Result {
+
+        private final long[] sorted;
+        private final long seconds;
+        private final long errors;
+
+        private Result(Samples samples, long seconds) {
+            this.sorted = Arrays.copyOf(samples.latencies, samples.size);
+            Arrays.sort(sorted);
+            this.seconds = seconds;
+            this.errors = samples.errors;
+        }
+
+        private double throughput() {
+            return (double) sorted.length / seconds;
+        }
+
+        private double percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
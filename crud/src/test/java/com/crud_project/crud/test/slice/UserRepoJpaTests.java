@@ -1,13 +1,25 @@
 package com.crud_project.crud.test.slice;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -15,12 +27,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
 import org.springframework.context.annotation.Import;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.crud_project.crud.entity.User;
 import com.crud_project.crud.repository.UserProjection;
 import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.repository.WheelSpinOutcome;
 import com.crud_project.crud.test.config.DatabaseTestcontainersConfiguration;
 
 @DataJpaTest
@@ -117,35 +135,239 @@ public class UserRepoJpaTests {
     public class paginationTests {
 
         @Test
-        void findAllBy_pageOfUsers_returnsCorrectPage() {
+        void findUserProjectionSliceBy_sliceOfUsers_knowsNextPageWithoutTotal() {
             // Save all test users
             for (String name : listOfUsernames) {
                 userRepo.save(userNameToUser.get(name));
             }
 
-            // Find a page of users
-            Page<UserProjection> users = userRepo.findAllUserProjectionBy(Pageable.ofSize(2));
+            // Find the first and last slice of users
+            Slice<UserProjection> first = userRepo.findUserProjectionSliceBy(Pageable.ofSize(2));
+            Slice<UserProjection> last = userRepo.findUserProjectionSliceBy(first.nextPageable());
 
-            // Verify that the page is correct
-            assertEquals(listOfUsernames.size(), users.getTotalElements());
-            assertEquals(2, users.getTotalPages());
-            assertEquals(2, users.getContent().size());
+            // Verify that the slices only know about their neighbours
+            assertEquals(2, first.getContent().size());
+            assertTrue(first.hasNext());
+            assertEquals(2, last.getContent().size());
+            assertFalse(last.hasNext());
         }
 
         @Test
-        void findAllUserNames_pageOfUserNames_returnsCorrectPage() {
-            // Save all test users
+        void findUserProjectionsAfterId_keysetPage_returnsRowsAfterCursor() {
+            List<Integer> ids = listOfUsernames.stream()
+                    .map(name -> userRepo.save(userNameToUser.get(name)).getId())
+                    .toList();
+
+            // Seek past the first user
+            List<UserProjection> users = userRepo.findUserProjectionsAfterId(ids.get(0), Limit.of(2));
+
+            // Verify that the page starts right after the cursor
+            assertEquals(2, users.size());
+            assertEquals(ids.get(1), users.get(0).getId());
+            assertEquals(ids.get(2), users.get(1).getId());
+        }
+
+        @Test
+        void findUserProjectionsAfterIdWithPrevious_keysetPage_isLedByTheRowBeforeIt() {
+            List<Integer> ids = listOfUsernames.stream()
+                    .map(name -> userRepo.save(userNameToUser.get(name)).getId())
+                    .toList();
+
+            // Verify that the user at the cursor leads, then the rows after it
+            assertEquals(List.of(ids.get(1), ids.get(2), ids.get(3)),
+                    userRepo.findUserProjectionsAfterIdWithPrevious(ids.get(1), 2).stream()
+                            .map(UserProjection::getId).toList());
+            // nothing at or before the cursor, so no leading row
+            assertEquals(List.of(ids.get(0), ids.get(1)),
+                    userRepo.findUserProjectionsAfterIdWithPrevious(ids.get(0) - 1, 2).stream()
+                            .map(UserProjection::getId).toList());
+        }
+
+        @Test
+        void findUserProjectionsBeforeId_keysetPage_returnsClosestRowsFirst() {
+            List<Integer> ids = listOfUsernames.stream()
+                    .map(name -> userRepo.save(userNameToUser.get(name)).getId())
+                    .toList();
+
+            // Seek back from the last user
+            List<UserProjection> users = userRepo.findUserProjectionsBeforeIdWithNext(ids.get(3), 2);
+
+            // Verify that the user at the cursor leads, then the rows closest to it
+            assertEquals(3, users.size());
+            assertEquals(ids.get(3), users.get(0).getId());
+            assertEquals(listOfUsernames.get(3), users.get(0).getUserName());
+            assertEquals(ids.get(2), users.get(1).getId());
+            assertEquals(ids.get(1), users.get(2).getId());
+
+            // nothing at or after the cursor, so no leading row
+            assertEquals(List.of(ids.get(3), ids.get(2)),
+                    userRepo.findUserProjectionsBeforeIdWithNext(ids.get(3) + 1, 2).stream()
+                            .map(UserProjection::getId).toList());
+            // nothing before the cursor, only the leading row
+            assertEquals(List.of(ids.get(0)),
+                    userRepo.findUserProjectionsBeforeIdWithNext(ids.get(0), 2).stream()
+                            .map(UserProjection::getId).toList());
+        }
+    }
+
+    @Nested
+    public class spinWheelTests {
+
+        @Test
+        void spinWheel_aliveSpinner_killsWinnerAndIncrementsSpinner() {
+            for (String name : listOfUsernames) {
+                userRepo.save(userNameToUser.get(name));
+            }
+            String spinnerName = listOfUsernames.get(0);
+
+            WheelSpinOutcome outcome = userRepo.spinWheel(spinnerName, 0L, listOfUsernames.size(), 0.99, false);
+
+            // Verify that the winner is the last participant and both rows were updated
+            assertEquals(String.join(",", listOfUsernames), outcome.getParticipants());
+            assertEquals(listOfUsernames.get(listOfUsernames.size() - 1), outcome.getWinnerName());
+            assertEquals(2, outcome.getUpdatedRows());
+            assertEquals(Optional.of(true), userRepo.findDeadByUserName(outcome.getWinnerName()));
+            assertEquals(1, userRepo.findUserProjectionByUserName(spinnerName).get().getAwCrudsPerformed());
+        }
+
+        @Test
+        void spinWheel_deadSpinner_updatesNothing() {
+            User spinner = userNameToUser.get(listOfUsernames.get(0));
+            spinner.setDead(true);
+            userRepo.save(spinner);
+            userRepo.save(userNameToUser.get(listOfUsernames.get(1)));
+
+            WheelSpinOutcome outcome = userRepo.spinWheel(spinner.getUserName(), 0L, 10, 0.5, false);
+
+            // Verify that the spin was rejected
+            assertNull(outcome.getWinnerName());
+            assertEquals(0, outcome.getUpdatedRows());
+            assertEquals(Optional.of(false), userRepo.findDeadByUserName(listOfUsernames.get(1)));
+        }
+
+        @Test
+        void spinWheel_lockRows_updatesLikeUnlocked() {
             for (String name : listOfUsernames) {
                 userRepo.save(userNameToUser.get(name));
             }
+            String spinnerName = listOfUsernames.get(0);
+
+            WheelSpinOutcome outcome = userRepo.spinWheel(spinnerName, 0L, listOfUsernames.size(), 0.99, true);
+
+            assertEquals(listOfUsernames.get(listOfUsernames.size() - 1), outcome.getWinnerName());
+            assertEquals(2, outcome.getUpdatedRows());
+            assertEquals(Optional.of(true), userRepo.findDeadByUserName(outcome.getWinnerName()));
+            assertEquals(1, userRepo.findUserProjectionByUserName(spinnerName).get().getAwCrudsPerformed());
+        }
+
+        @Test
+        void spinWheelGlobal_takesTheFirstLivingSampledUsers() {
+            userRepo.saveAll(userNameToUser.values());
+            userRepo.save(User.builder().userName("DeadUser").hashedPassword("dead").dead(true).build());
+            String spinnerName = listOfUsernames.get(0);
+            String[] names = { "DeadUser", listOfUsernames.get(3), spinnerName, listOfUsernames.get(1),
+                    listOfUsernames.get(2) };
+
+            // a roll of 0 makes the spinner, always first, the winner
+            WheelSpinOutcome outcome = userRepo.spinWheelGlobal(spinnerName, names, 2, 0.0, false);
+
+            List<String> participants = List.of(outcome.getParticipants().split(","));
+            assertEquals(spinnerName, participants.get(0));
+            assertEquals(spinnerName, outcome.getWinnerName());
+            assertEquals(Set.of(listOfUsernames.get(3), listOfUsernames.get(1)),
+                    Set.copyOf(participants.subList(1, participants.size())));
+            assertEquals(1, outcome.getUpdatedRows());
+        }
+
+        @Test
+        void spinWheelGlobal_noLivingSampledUser_isRejected() {
+            String spinnerName = listOfUsernames.get(0);
+            userRepo.save(userNameToUser.get(spinnerName));
+            userRepo.save(User.builder().userName("DeadUser").hashedPassword("dead").dead(true).build());
+
+            WheelSpinOutcome outcome = userRepo.spinWheelGlobal(spinnerName, new String[] { "DeadUser" }, 3, 0.5, false);
+
+            assertNull(outcome.getWinnerName());
+            assertEquals(0, outcome.getUpdatedRows());
+            assertEquals(0, userRepo.findUserProjectionByUserName(spinnerName).get().getAwCrudsPerformed());
+        }
+
+        @Test
+        void spinWheelGlobal_deadSpinner_updatesNothing() {
+            User spinner = userNameToUser.get(listOfUsernames.get(0));
+            spinner.setDead(true);
+            userRepo.save(spinner);
+            userRepo.save(userNameToUser.get(listOfUsernames.get(1)));
+
+            WheelSpinOutcome outcome = userRepo.spinWheelGlobal(spinner.getUserName(),
+                    new String[] { listOfUsernames.get(1) }, 10, 0.5, false);
+
+            assertNull(outcome.getWinnerName());
+            assertEquals(0, outcome.getUpdatedRows());
+        }
+    }
+
+    // committed rows and two connections, so no test transaction
+    @Nested
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public class spinWheelRaceTests {
+
+        @Autowired
+        private DataSource dataSource;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void spinWheel_spinnerKilledWhileWaiting_updatesNothing() throws Exception {
+            spinWhileSpinnerIsKilled(false);
+        }
 
-            // Find a page of user names
-            Page<String> userNames = userRepo.findAllUserNames(Pageable.ofSize(2));
+        @Test
+        void spinWheel_lockRows_spinnerKilledWhileWaiting_updatesNothing() throws Exception {
+            spinWhileSpinnerIsKilled(true);
+        }
 
-            // Verify that the page is correct
-            assertEquals(listOfUsernames.size(), userNames.getTotalElements());
-            assertEquals(2, userNames.getTotalPages());
-            assertEquals(2, userNames.getContent().size());
+        private void spinWhileSpinnerIsKilled(boolean lockRows) throws Exception {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                users.add(userRepo.save(User.builder().userName("RaceUser" + i).hashedPassword("race").build()));
+            }
+            String spinnerName = users.get(0).getUserName();
+            String winnerName = users.get(2).getUserName();
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try (Connection killer = dataSource.getConnection()) {
+                // a concurrent spin that killed the spinner and hasn't committed yet
+                killer.setAutoCommit(false);
+                try (PreparedStatement kill = killer.prepareStatement("UPDATE users SET dead = true WHERE user_name = ?")) {
+                    kill.setString(1, spinnerName);
+                    kill.executeUpdate();
+                }
+
+                // a roll of 0.99 makes the last of the three participants the winner
+                Future<WheelSpinOutcome> spin = executor.submit(() -> userRepo.spinWheelAfterId(
+                        spinnerName, users.get(0).getId() - 1, 3, 0.99, lockRows));
+                awaitLockWait(spin);
+                killer.commit();
+                WheelSpinOutcome outcome = spin.get(10, TimeUnit.SECONDS);
+
+                assertEquals(winnerName, outcome.getWinnerName());
+                assertEquals(0, outcome.getUpdatedRows());
+                assertNull(outcome.getSpinnerCruds());
+                assertEquals(Optional.of(false), userRepo.findDeadByUserName(winnerName));
+            } finally {
+                executor.shutdownNow();
+                userRepo.deleteByUserNames(users.stream().map(User::getUserName).toArray(String[]::new));
+            }
+        }
+
+        private void awaitLockWait(Future<?> spin) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (jdbcTemplate.queryForObject("SELECT count(*) FROM pg_locks WHERE NOT granted", Integer.class) == 0) {
+                assertFalse(spin.isDone(), "the spin should wait for the spinner's row");
+                assertTrue(System.nanoTime() < deadline, "the spin never waited for the spinner's row");
+                Thread.sleep(10);
+            }
         }
     }
 
@@ -173,4 +395,93 @@ public class UserRepoJpaTests {
             assertFalse(exists);
         }
     }
+
+    @Nested
+    public class bulkInsertTests {
+
+        @Test
+        void findExistingUserNames_someExist_returnsOnlyExisting() {
+            userRepo.save(userNameToUser.get(listOfUsernames.get(0)));
+            userRepo.save(userNameToUser.get(listOfUsernames.get(1)));
+            userRepo.flush();
+
+            Set<String> existing = userRepo.findExistingUserNames(
+                    new String[] { listOfUsernames.get(0), listOfUsernames.get(1), "nonExistentUser" });
+
+            assertEquals(Set.of(listOfUsernames.get(0), listOfUsernames.get(1)), existing);
+        }
+
+        @Test
+        void persistInBatches_manyUsers_assignsIdsAndPersistsAll() {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < 1200; i++) {
+                users.add(User.builder().userName("BulkUser" + i).hashedPassword("hash").build());
+            }
+
+            userRepo.persistInBatches(users);
+
+            assertEquals(users.size(), users.stream().map(User::getId).distinct().count());
+            assertEquals(users.size(), userRepo.count());
+            assertTrue(userRepo.existsByUserName("BulkUser1199"));
+        }
+    }
+
+    @Nested
+    public class bulkDeleteTests {
+
+        @Test
+        void deleteUserById_existingUser_returnsItsName() {
+            User user1 = userRepo.save(userNameToUser.get(listOfUsernames.get(0)));
+
+            assertEquals(user1.getUserName(), userRepo.deleteUserById(user1.getId()));
+            assertNull(userRepo.deleteUserById(user1.getId()));
+            assertFalse(userRepo.existsByUserName(user1.getUserName()));
+        }
+
+        @Test
+        void deleteByUserNames_someNames_deletesOnlyThose() {
+            userRepo.saveAll(userNameToUser.values());
+
+            int deleted = userRepo.deleteByUserNames(
+                    new String[] { listOfUsernames.get(0), listOfUsernames.get(1), "nonExistentUser" });
+
+            assertEquals(2, deleted);
+            assertEquals(listOfUsernames.size() - 2, userRepo.count());
+        }
+
+        @Test
+        void deleteChunk_moreUsersThanChunk_deletesAtMostChunk() {
+            userRepo.saveAll(userNameToUser.values());
+
+            assertEquals(3, userRepo.deleteChunk(3));
+            assertEquals(1, userRepo.deleteChunk(3));
+            assertEquals(0, userRepo.count());
+        }
+    }
+
+    @Nested
+    public class schemaTests {
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void migrations_createPerformanceIndexes() {
+            List<String> indexes = jdbcTemplate.queryForList(
+                    "SELECT indexname FROM pg_indexes WHERE tablename = 'users'", String.class);
+
+            assertTrue(indexes.containsAll(
+                    List.of("users_user_name_key", "users_alive_idx", "users_ranking_idx")));
+        }
+
+        @Test
+        void userNameIndex_stillUnique() {
+            userRepo.saveAndFlush(userNameToUser.get(listOfUsernames.get(0)));
+
+            assertThrows(DataIntegrityViolationException.class, () -> userRepo.saveAndFlush(User.builder()
+                    .userName(listOfUsernames.get(0))
+                    .hashedPassword("other")
+                    .build()));
+        }
+    }
 }
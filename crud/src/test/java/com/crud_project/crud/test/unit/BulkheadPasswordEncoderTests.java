@@ -0,0 +1,109 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.crud_project.crud.security.BulkheadPasswordEncoder;
+import com.crud_project.crud.security.PasswordHashingRejectedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BulkheadPasswordEncoderTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CountDownLatch release;
+    private BulkheadPasswordEncoder encoder;
+
+    // "hashes" by prefixing, blocking while release is held
+    private final PasswordEncoder slowEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+    };
+
+    private void await() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @BeforeEach
+    public void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        release = new CountDownLatch(0);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        release.countDown();
+        encoder.close();
+    }
+
+    private double rejected(String operation) {
+        return meterRegistry.get("password.hashing.rejected").tag("operation", operation).counter().count();
+    }
+
+    @Test
+    void testEncodeAndMatches_Delegated() {
+        encoder = new BulkheadPasswordEncoder(slowEncoder, 1, 1, 1000, meterRegistry);
+
+        String hash = encoder.encode("password");
+
+        assertEquals("hashed:password", hash);
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(0, rejected("encode"));
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void testEncode_RejectedWhenQueueFull() throws Exception {
+        release = new CountDownLatch(1);
+        encoder = new BulkheadPasswordEncoder(slowEncoder, 1, 1, 10_000, meterRegistry);
+
+        // one running, one queued
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("executor.queued").tag("name", "password.hashing").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.matches("c", "hashed:c"));
+        assertEquals(1, rejected("matches"));
+
+        release.countDown();
+        assertEquals("hashed:a", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed:b", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testEncode_RejectedWhenTooSlow() {
+        release = new CountDownLatch(1);
+        encoder = new BulkheadPasswordEncoder(slowEncoder, 1, 1, 50, meterRegistry);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("a"));
+        assertEquals(1, rejected("encode"));
+    }
+}
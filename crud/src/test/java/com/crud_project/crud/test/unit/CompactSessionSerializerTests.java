@@ -0,0 +1,65 @@
+package com.crud_project.crud.test.unit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.security.CompactSessionSerializer;
+import com.crud_project.crud.security.CustomUserDetails;
+
+class CompactSessionSerializerTests {
+
+    private final ConversionService conversionService = new CompactSessionSerializer(
+            getClass().getClassLoader()).conversionService();
+
+    @Test
+    void testSecurityContext_RoundTripsWellUnderJavaSerialization() throws Exception {
+        CustomUserDetails userDetails = CustomUserDetails.builder()
+                .id(1)
+                .username("user1")
+                .authorities(Set.of("USER"))
+                .build();
+        SecurityContextImpl securityContext = new SecurityContextImpl(UsernamePasswordAuthenticationToken
+                .authenticated(userDetails, null, userDetails.getAuthorities()));
+
+        byte[] bytes = conversionService.convert(securityContext, byte[].class);
+        SecurityContextImpl read = (SecurityContextImpl) conversionService.convert(bytes, Object.class);
+
+        assertEquals("user1", read.getAuthentication().getName());
+        assertEquals(1, ((CustomUserDetails) read.getAuthentication().getPrincipal()).getId());
+        int javaSerializedLength = javaSerialized(securityContext).length;
+        assertTrue(bytes.length < javaSerializedLength * 2 / 3,
+                bytes.length + " bytes should be well under " + javaSerializedLength);
+    }
+
+    @Test
+    void testSmallValues_AreNeverLargerThanJavaSerialization() throws Exception {
+        PageState pageState = PageState.of(2, 25, null, 40);
+
+        byte[] bytes = conversionService.convert(pageState, byte[].class);
+        PageState read = (PageState) conversionService.convert(bytes, Object.class);
+
+        assertEquals(2, read.getPage());
+        assertEquals(25, read.getSize());
+        assertEquals(40, read.getCursor());
+        assertEquals(PageState.Direction.BEFORE, read.getDirection());
+        assertTrue(bytes.length <= javaSerialized(pageState).length + 1);
+        assertTrue(conversionService.convert(conversionService.convert("a", byte[].class), Object.class).equals("a"));
+    }
+
+    private static byte[] javaSerialized(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+            objectOutputStream.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,69 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.crud_project.crud.dvo.WheelSpinResult;
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.metrics.GameMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GameMetricsTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GameMetrics gameMetrics;
+
+    @BeforeEach
+    public void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        gameMetrics = new GameMetrics(meterRegistry);
+    }
+
+    private long count(String name, String outcome) {
+        return meterRegistry.get(name).tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void testRecordSpin_ByOutcome() {
+        WheelSpinResult selfKill = new WheelSpinResult("user1", List.of("user1", "user2"));
+        WheelSpinResult otherKill = new WheelSpinResult("user2", List.of("user1", "user2"));
+
+        assertSame(selfKill, gameMetrics.recordSpin("user1", () -> selfKill));
+        assertSame(otherKill, gameMetrics.recordSpin("user1", () -> otherKill));
+        assertSame(otherKill, gameMetrics.recordSpin("user1", () -> otherKill));
+        assertNull(gameMetrics.recordSpin("user1", () -> null));
+
+        assertEquals(1, count("wheel.spin", "self_kill"));
+        assertEquals(2, count("wheel.spin", "other_kill"));
+        assertEquals(1, count("wheel.spin", "rejected"));
+        assertEquals(0, count("wheel.spin", "lock_failure"));
+    }
+
+    @Test
+    void testRecordSpin_LockFailureRethrown() {
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> gameMetrics.recordSpin("user1", () -> {
+            throw new ObjectOptimisticLockingFailureException(User.class, 1);
+        }));
+
+        assertEquals(1, count("wheel.spin", "lock_failure"));
+    }
+
+    @Test
+    void testRecordRegistration_ByOutcome() {
+        User user = User.builder().userName("user1").build();
+
+        assertSame(user, gameMetrics.recordRegistration(() -> user));
+        assertNull(gameMetrics.recordRegistration(() -> null));
+
+        assertEquals(1, count("user.registration", "created"));
+        assertEquals(1, count("user.registration", "rejected"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.crud_project.crud.test.unit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+
+import com.crud_project.crud.security.LazyTouchSessionRepository;
+
+class LazyTouchSessionRepositoryTests {
+
+    private final MapSessionRepository sessions = new MapSessionRepository(new ConcurrentHashMap<>());
+    private final LazyTouchSessionRepository<?> repository = new LazyTouchSessionRepository<>(
+            sessions, Duration.ofSeconds(60));
+
+    @Test
+    void testTouch_IsOnlyStoredOnceTheIntervalPassed() {
+        Session session = repository.createSession();
+        Instant created = session.getLastAccessedTime();
+        repository.save(session);
+
+        Session found = repository.findById(session.getId());
+        found.setLastAccessedTime(created.plusSeconds(59));
+        repository.save(found);
+        assertEquals(created, sessions.findById(session.getId()).getLastAccessedTime());
+
+        found = repository.findById(session.getId());
+        found.setLastAccessedTime(created.plusSeconds(60));
+        repository.save(found);
+        assertEquals(created.plusSeconds(60), sessions.findById(session.getId()).getLastAccessedTime());
+    }
+
+    @Test
+    void testAttributes_AreStoredAsSet() {
+        Session session = repository.createSession();
+        session.setAttribute("pageState", "page");
+        repository.save(session);
+
+        Session found = repository.findById(session.getId());
+        assertEquals("page", found.getAttribute("pageState"));
+        found.removeAttribute("pageState");
+        repository.save(found);
+        assertNull(sessions.findById(session.getId()).getAttribute("pageState"));
+
+        repository.deleteById(session.getId());
+        assertNull(repository.findById(session.getId()));
+    }
+}
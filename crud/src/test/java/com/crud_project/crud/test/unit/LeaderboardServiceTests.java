@@ -0,0 +1,194 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.data.domain.Limit;
+
+import com.crud_project.crud.dvo.LeaderboardEntry;
+import com.crud_project.crud.event.UserChangedEvent;
+import com.crud_project.crud.repository.UserProjection;
+import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.repository.impl.UserProjectionImpl;
+import com.crud_project.crud.service.LeaderboardService;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardServiceTests {
+
+    @InjectMocks
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private UserRepo userRepo;
+
+    // user1 has 1 aw crud, user2 has 2, ... so user5 is ranked first
+    private static final int USER_COUNT = 5;
+    private List<UserProjection> users;
+
+    @BeforeEach
+    public void beforeEach() {
+        users = new ArrayList<>();
+        for (int i = 1; i <= USER_COUNT; i++) {
+            users.add(new UserProjectionImpl(i, "user" + i, i, false));
+        }
+        lenient().when(userRepo.findUserProjectionsAfterId(anyInt(), any())).thenReturn(List.of());
+        lenient().when(userRepo.findUserProjectionsAfterId(0, Limit.of(1000)))
+                .thenReturn(users);
+        leaderboardService.reload();
+    }
+
+    @Nested
+    public class QueryTests {
+
+        @Test
+        void testGetTop_OrderedByAwCrudsPerformed() {
+            List<LeaderboardEntry> top = leaderboardService.getTop(3);
+
+            assertEquals(List.of("user5", "user4", "user3"),
+                    top.stream().map(LeaderboardEntry::getUserName).toList());
+            assertEquals(List.of(1, 2, 3), top.stream().map(LeaderboardEntry::getRank).toList());
+        }
+
+        @Test
+        void testGetTop_MoreThanSize() {
+            assertEquals(USER_COUNT, leaderboardService.getTop(100).size());
+        }
+
+        @Test
+        void testGetEntry_Rank() {
+            LeaderboardEntry entry = leaderboardService.getEntry("user2");
+
+            assertEquals(4, entry.getRank());
+            assertEquals(2, entry.getAwCrudsPerformed());
+        }
+
+        @Test
+        void testGetEntry_Missing() {
+            assertNull(leaderboardService.getEntry("nonexistent"));
+        }
+
+        @Test
+        void testGetAround_ClampedAtTop() {
+            List<LeaderboardEntry> around = leaderboardService.getAround("user4", 2);
+
+            assertEquals(List.of("user5", "user4", "user3", "user2"),
+                    around.stream().map(LeaderboardEntry::getUserName).toList());
+        }
+
+        @Test
+        void testGetAround_Missing() {
+            assertTrue(leaderboardService.getAround("nonexistent", 2).isEmpty());
+        }
+    }
+
+    @Nested
+    public class EventTests {
+
+        @Test
+        void testOnUserChanged_UpdatedMovesUser() {
+            leaderboardService.onUserChanged(UserChangedEvent.updated("user1", 10, false));
+
+            assertEquals(1, leaderboardService.getEntry("user1").getRank());
+            assertEquals(2, leaderboardService.getEntry("user5").getRank());
+        }
+
+        @Test
+        void testOnUserChanged_UpdatedKeepsRankWhenOnlyDeadChanges() {
+            leaderboardService.onUserChanged(UserChangedEvent.updated("user3", 3, true));
+
+            LeaderboardEntry entry = leaderboardService.getEntry("user3");
+            assertEquals(3, entry.getRank());
+            assertTrue(entry.isDead());
+        }
+
+        @Test
+        void testOnUserChanged_AddedAndRemovedById() {
+            leaderboardService.onUserChanged(new UserChangedEvent(
+                    UserChangedEvent.Type.ADDED, 6, "user6", 0, false, false, null));
+            assertEquals(USER_COUNT + 1, leaderboardService.getSize());
+            assertEquals(USER_COUNT + 1, leaderboardService.getEntry("user6").getRank());
+
+            leaderboardService.onUserChanged(UserChangedEvent.removed(6, null));
+            assertEquals(USER_COUNT, leaderboardService.getSize());
+            assertNull(leaderboardService.getEntry("user6"));
+        }
+
+        @Test
+        void testOnUserChanged_RemovedByNames() {
+            leaderboardService.onUserChanged(UserChangedEvent.removed(List.of("user1", "user2", "user9")));
+
+            assertEquals(USER_COUNT - 2, leaderboardService.getSize());
+            assertNull(leaderboardService.getEntry("user1"));
+            assertEquals(1, leaderboardService.getEntry("user5").getRank());
+        }
+
+        @Test
+        void testOnUserChanged_TiesOrderedByName() {
+            leaderboardService.onUserChanged(UserChangedEvent.updated("user1", 5, false));
+
+            assertEquals(1, leaderboardService.getEntry("user1").getRank());
+            assertEquals(2, leaderboardService.getEntry("user5").getRank());
+        }
+
+        @Test
+        void testReload_KeepsChangesArrivingWhileLoading() {
+            // user1 overtakes everyone after its row was read
+            lenient().when(userRepo.findUserProjectionsAfterId(0, Limit.of(1000))).thenAnswer(invocation -> {
+                leaderboardService.onUserChanged(UserChangedEvent.updated("user1", 10, false));
+                return users;
+            });
+
+            leaderboardService.reload();
+
+            assertEquals("user1", leaderboardService.getTop(1).get(0).getUserName());
+            assertEquals(10, leaderboardService.getEntry("user1").getAwCrudsPerformed());
+
+            // and none are replayed by the next reload
+            lenient().when(userRepo.findUserProjectionsAfterId(0, Limit.of(1000))).thenReturn(users);
+            leaderboardService.reload();
+            assertEquals(1, leaderboardService.getEntry("user1").getAwCrudsPerformed());
+        }
+
+        @Test
+        void testSampleAlive_OnlyLivingUsersButExcluded() {
+            leaderboardService.onUserChanged(UserChangedEvent.updated("user3", 3, true));
+
+            List<String> sample = leaderboardService.sampleAlive(10, "user1", new SplittableRandom(1));
+
+            assertEquals(Set.of("user2", "user4", "user5"), Set.copyOf(sample));
+            assertEquals(3, sample.size());
+        }
+
+        @Test
+        void testSampleAlive_DistinctAndCoversEveryLivingUser() {
+            leaderboardService.onUserChanged(UserChangedEvent.updated("user3", 3, true));
+            SplittableRandom random = new SplittableRandom(1);
+            Set<String> seen = new HashSet<>();
+
+            for (int i = 0; i < 100; i++) {
+                List<String> sample = leaderboardService.sampleAlive(2, null, random);
+                assertEquals(2, sample.size());
+                assertEquals(2, Set.copyOf(sample).size());
+                seen.addAll(sample);
+            }
+            assertEquals(Set.of("user1", "user2", "user4", "user5"), seen);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.crud_project.crud.test.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.crud_project.crud.controller.PageStateArgumentResolver;
+import com.crud_project.crud.controller.SessionKeys;
+import com.crud_project.crud.dvo.PageState;
+
+class PageStateArgumentResolverTests {
+
+    private final PageStateArgumentResolver sessionResolver = new PageStateArgumentResolver("session");
+    private final PageStateArgumentResolver requestResolver = new PageStateArgumentResolver("request");
+
+    private PageState resolve(PageStateArgumentResolver resolver, MockHttpServletRequest request) {
+        return resolver.resolveArgument(null, null, new ServletWebRequest(request), null);
+    }
+
+    @Test
+    void testResolveArgument_SessionModeReadsTheSession() {
+        PageState pageState = PageState.builder().size(5).build();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession().setAttribute(SessionKeys.CUR_USER_PAGE_STATE, pageState);
+        request.setParameter(PageStateArgumentResolver.PAGE_SIZE, "20");
+
+        assertSame(pageState, resolve(sessionResolver, request));
+        assertNull(resolve(sessionResolver, new MockHttpServletRequest()));
+    }
+
+    @Test
+    void testResolveArgument_RequestModeReadsTheParameters() {
+        PageState defaults = resolve(requestResolver, new MockHttpServletRequest());
+        assertEquals(PageState.MIN_PAGE, defaults.getPage());
+        assertEquals(PageState.DEFAULT_PAGE, defaults.getSize());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter(PageStateArgumentResolver.PAGE_SIZE, "5");
+        request.setParameter(PageStateArgumentResolver.BEFORE_ID, "40");
+        PageState keyset = resolve(requestResolver, request);
+        assertTrue(keyset.isKeyset());
+        assertEquals(40, keyset.getCursor());
+        assertEquals(PageState.Direction.BEFORE, keyset.getDirection());
+    }
+
+    @Test
+    void testResolveArgument_RequestModeRejectsInvalidParameters() {
+        MockHttpServletRequest tooBig = new MockHttpServletRequest();
+        tooBig.setParameter(PageStateArgumentResolver.PAGE_SIZE, String.valueOf(PageState.MAX_SIZE + 1));
+        MockHttpServletRequest notANumber = new MockHttpServletRequest();
+        notANumber.setParameter(PageStateArgumentResolver.PAGE_NUMBER, "one");
+
+        assertNull(resolve(requestResolver, tooBig));
+        assertNull(resolve(requestResolver, notANumber));
+    }
+
+    @Test
+    void testToQuery_ResolvesBackToThePageState() {
+        for (PageState pageState : new PageState[] {
+                PageState.of(3, 20, null, null),
+                PageState.of(0, 5, 17, null),
+                PageState.of(0, 5, null, 17) }) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setQueryString(PageStateArgumentResolver.toQuery(pageState).substring(1));
+            for (String pair : request.getQueryString().split("&")) {
+                String[] parts = pair.split("=");
+                request.setParameter(parts[0], parts[1]);
+            }
+            PageState resolved = resolve(requestResolver, request);
+
+            assertEquals(pageState.getPage(), resolved.getPage());
+            assertEquals(pageState.getSize(), resolved.getSize());
+            assertEquals(pageState.getCursor(), resolved.getCursor());
+            assertEquals(pageState.getDirection(), resolved.getDirection());
+        }
+    }
+}
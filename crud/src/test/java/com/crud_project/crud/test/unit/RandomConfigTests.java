@@ -0,0 +1,52 @@
+package com.crud_project.crud.test.unit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.api.Test;
+
+import com.crud_project.crud.configuration.RandomConfig;
+
+class RandomConfigTests {
+
+    private final RandomConfig randomConfig = new RandomConfig();
+
+    private static int[] draw(RandomGenerator random) {
+        int[] draws = new int[20];
+        for (int i = 0; i < draws.length; i++) {
+            draws[i] = random.nextInt(1000);
+        }
+        return draws;
+    }
+
+    @Test
+    void testSeeded_RepeatsDraws() {
+        int[] first = draw(randomConfig.random(RandomConfig.SEEDED, 7));
+        int[] second = draw(randomConfig.random(RandomConfig.SEEDED, 7));
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void testThreadLocal_DrawsInRangeOnAnyThread() {
+        RandomGenerator random = randomConfig.random(RandomConfig.THREAD_LOCAL, 7);
+
+        int fromOtherThread = CompletableFuture.supplyAsync(() -> random.nextInt(10, 20)).join();
+
+        assertTrue(fromOtherThread >= 10 && fromOtherThread < 20);
+        double roll = random.nextDouble();
+        assertTrue(roll >= 0 && roll < 1);
+    }
+
+    @Test
+    void testUnknownMode_Throws() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> randomConfig.random("shared", 7));
+        assertEquals("crud.random.mode must be thread-local or seeded, was shared", e.getMessage());
+    }
+}
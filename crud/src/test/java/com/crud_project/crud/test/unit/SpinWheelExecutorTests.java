@@ -0,0 +1,100 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.crud_project.crud.dvo.PageState;
+import com.crud_project.crud.dvo.WheelSpinResult;
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.service.SpinWheelExecutor;
+import com.crud_project.crud.service.SpinWheelExecutor.ConflictStrategy;
+import com.crud_project.crud.service.UserService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class SpinWheelExecutorTests {
+
+    private static final String USER_NAME = "user1";
+
+    @Mock
+    private UserService userService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PageState pageState;
+    private WheelSpinResult result;
+
+    @BeforeEach
+    public void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        pageState = PageState.builder().size(5).build();
+        result = new WheelSpinResult("user2", List.of(USER_NAME, "user2"));
+    }
+
+    private SpinWheelExecutor executor(String strategy, int maxAttempts) {
+        // no backoff, the tests would only sleep
+        return new SpinWheelExecutor(userService, new SplittableRandom(0), meterRegistry, strategy, maxAttempts, 0);
+    }
+
+    private double retries() {
+        return meterRegistry.get("wheel.spin.retries").counter().count();
+    }
+
+    @Test
+    void testRetry_SucceedsAfterConflicts() {
+        when(userService.spinWheelAtomic(USER_NAME, pageState, false))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenThrow(new ObjectOptimisticLockingFailureException(User.class, 1))
+                .thenReturn(result);
+
+        assertSame(result, executor("retry", 3).spin(USER_NAME, pageState, false));
+
+        verify(userService, times(3)).spinWheelAtomic(USER_NAME, pageState, false);
+        assertEquals(2, retries());
+    }
+
+    @Test
+    void testRetry_GivesUpAfterMaxAttempts() {
+        when(userService.spinWheelAtomic(USER_NAME, pageState, false))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+        SpinWheelExecutor executor = executor("retry", 2);
+        assertThrows(CannotAcquireLockException.class, () -> executor.spin(USER_NAME, pageState, false));
+
+        verify(userService, times(2)).spinWheelAtomic(USER_NAME, pageState, false);
+        assertEquals(1, retries());
+    }
+
+    @Test
+    void testOrderedLock_LocksRowsAndRunsOnce() {
+        when(userService.spinGlobalWheel(USER_NAME, 5, true))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        SpinWheelExecutor executor = executor("ordered-lock", 3);
+        assertEquals(ConflictStrategy.ORDERED_LOCK, executor.getStrategy());
+        assertThrows(CannotAcquireLockException.class, () -> executor.spin(USER_NAME, pageState, true));
+
+        verify(userService, times(1)).spinGlobalWheel(USER_NAME, 5, true);
+        assertEquals(0, retries());
+    }
+
+    @Test
+    void testConstructor_RejectsBadSettings() {
+        assertThrows(IllegalArgumentException.class, () -> executor("optimistic", 3));
+        assertThrows(IllegalArgumentException.class, () -> executor("retry", 0));
+    }
+}
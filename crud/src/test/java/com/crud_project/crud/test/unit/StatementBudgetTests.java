@@ -0,0 +1,48 @@
+package com.crud_project.crud.test.unit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.crud_project.crud.metrics.StatementBudget;
+import com.crud_project.crud.metrics.StatementBudgetExceededException;
+
+class StatementBudgetTests {
+
+    private static final String ENDPOINTS = "GET /crud=4, POST /crud/spinWheel=2,POST /crud/create-test-users=0";
+
+    @Test
+    void testBudgetFor_EndpointOrDefault() {
+        StatementBudget budget = new StatementBudget(10, ENDPOINTS, true);
+
+        assertEquals(4, budget.budgetFor("GET", "/crud"));
+        assertEquals(2, budget.budgetFor("POST", "/crud/spinWheel"));
+        assertEquals(0, budget.budgetFor("POST", "/crud/create-test-users"));
+        assertEquals(10, budget.budgetFor("POST", "/crud"));
+    }
+
+    @Test
+    void testCheck_ThrowsOverBudgetWhenFailing() {
+        StatementBudget budget = new StatementBudget(10, ENDPOINTS, true);
+
+        assertDoesNotThrow(() -> budget.check("GET", "/crud", 4));
+        assertThrows(StatementBudgetExceededException.class, () -> budget.check("GET", "/crud", 5));
+        assertThrows(StatementBudgetExceededException.class, () -> budget.check("GET", "/home", 11));
+    }
+
+    @Test
+    void testCheck_UnlimitedOrLogging() {
+        StatementBudget failing = new StatementBudget(0, ENDPOINTS, true);
+        StatementBudget logging = new StatementBudget(10, ENDPOINTS, false);
+
+        assertDoesNotThrow(() -> failing.check("POST", "/crud/create-test-users", 10_000));
+        assertDoesNotThrow(() -> failing.check("GET", "/home", 10_000));
+        assertDoesNotThrow(() -> logging.check("GET", "/crud", 5));
+    }
+
+    @Test
+    void testConstructor_RejectsMalformedEndpoints() {
+        assertThrows(IllegalArgumentException.class, () -> new StatementBudget(10, "GET /crud", false));
+    }
+}
@@ -0,0 +1,124 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.crud_project.crud.security.TokenBucketRateLimiter;
+
+class TokenBucketRateLimiterTests {
+
+    // 60 per minute is one token a second
+    private static final long SECOND = 1_000_000_000L;
+
+    private AtomicLong clock;
+
+    @BeforeEach
+    public void beforeEach() {
+        clock = new AtomicLong(0);
+    }
+
+    private TokenBucketRateLimiter limiter(int burst, int maxKeys) {
+        return new TokenBucketRateLimiter(60, burst, maxKeys, clock::get);
+    }
+
+    @Test
+    void testTryAcquire_BurstThenRejects() {
+        TokenBucketRateLimiter limiter = limiter(5, 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("client"));
+        }
+        assertFalse(limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void testTryAcquire_RefillsAtRate() {
+        TokenBucketRateLimiter limiter = limiter(2, 100);
+        assertTrue(limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+
+        clock.addAndGet(SECOND);
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+
+        // idling refills no more than the burst
+        clock.addAndGet(60 * SECOND);
+        assertTrue(limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void testTryAcquire_NoBurstAcrossWindowBoundary() {
+        TokenBucketRateLimiter limiter = limiter(100, 100);
+        int allowed = 0;
+        // 200 requests in the 2 seconds around where a fixed window would reset
+        for (int i = 0; i < 200; i++) {
+            if (limiter.tryAcquire("client")) {
+                allowed++;
+            }
+            clock.addAndGet(SECOND / 100);
+        }
+        assertEquals(101, allowed);
+    }
+
+    @Test
+    void testTryAcquire_KeysAreIndependent() {
+        TokenBucketRateLimiter limiter = limiter(1, 100);
+
+        assertTrue(limiter.tryAcquire("client1"));
+        assertFalse(limiter.tryAcquire("client1"));
+        assertTrue(limiter.tryAcquire("client2"));
+    }
+
+    @Test
+    void testSize_BoundedByMaxKeys() {
+        TokenBucketRateLimiter limiter = limiter(10, 64);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("client" + i);
+        }
+        // each of the 64 stripes holds a single key
+        assertTrue(limiter.size() <= 64);
+    }
+
+    @Test
+    void testTryAcquire_LeastRecentlyUsedKeyEvicted() {
+        // capacity 64 is one key per stripe, so two keys in a stripe share it
+        TokenBucketRateLimiter limiter = limiter(1, 64);
+        String first = "client0";
+        String second = null;
+        for (int i = 1; second == null; i++) {
+            String candidate = "client" + i;
+            if (sameStripe(first, candidate)) {
+                second = candidate;
+            }
+        }
+
+        assertTrue(limiter.tryAcquire(first));
+        assertFalse(limiter.tryAcquire(first));
+        assertTrue(limiter.tryAcquire(second));
+        // first was evicted so it starts with a full bucket again
+        assertTrue(limiter.tryAcquire(first));
+    }
+
+    private static boolean sameStripe(String a, String b) {
+        int hashA = a.hashCode() ^ (a.hashCode() >>> 16);
+        int hashB = b.hashCode() ^ (b.hashCode() >>> 16);
+        return (hashA & 63) == (hashB & 63);
+    }
+
+    @Test
+    void testConstructor_RejectsNonPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(1, 1, 0));
+    }
+}
@@ -0,0 +1,65 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.crud_project.crud.configuration.CacheConfig;
+import com.crud_project.crud.security.CustomUserDetails;
+import com.crud_project.crud.security.UserAuthCache;
+
+class UserAuthCacheTests {
+
+    private UserAuthCache userAuthCache;
+
+    @BeforeEach
+    public void beforeEach() {
+        userAuthCache = new UserAuthCache(new ConcurrentMapCacheManager(CacheConfig.USER_DETAILS));
+    }
+
+    private CustomUserDetails userDetails() {
+        return CustomUserDetails.builder()
+                .id(1)
+                .username("user1")
+                .password("hash")
+                .authorities(Set.of("USER"))
+                .build();
+    }
+
+    @Test
+    void testGetUserFromCache_Miss() {
+        assertNull(userAuthCache.getUserFromCache("user1"));
+    }
+
+    @Test
+    void testGetUserFromCache_NewInstanceSurvivesErasedCredentials() {
+        CustomUserDetails user = userDetails();
+        userAuthCache.putUserInCache(user);
+        user.eraseCredentials();
+
+        UserDetails first = userAuthCache.getUserFromCache("user1");
+        ((CustomUserDetails) first).eraseCredentials();
+        UserDetails second = userAuthCache.getUserFromCache("user1");
+
+        assertNotSame(first, second);
+        assertEquals("user1", second.getUsername());
+        assertEquals("hash", second.getPassword());
+        assertEquals(1, ((CustomUserDetails) second).getId());
+        assertEquals(1, second.getAuthorities().size());
+    }
+
+    @Test
+    void testRemoveUserFromCache() {
+        userAuthCache.putUserInCache(userDetails());
+
+        userAuthCache.removeUserFromCache("user1");
+
+        assertNull(userAuthCache.getUserFromCache("user1"));
+    }
+}
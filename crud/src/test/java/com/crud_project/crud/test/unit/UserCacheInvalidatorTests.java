@@ -0,0 +1,114 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import com.crud_project.crud.configuration.CacheConfig;
+import com.crud_project.crud.entity.User;
+import com.crud_project.crud.event.UserChangedEvent;
+import com.crud_project.crud.service.UserCacheInvalidator;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheInvalidatorTests {
+
+    @InjectMocks
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache projectionCache;
+
+    @Mock
+    private Cache deadCache;
+
+    @Mock
+    private Cache detailsCache;
+
+    @BeforeEach
+    public void beforeEach() {
+        when(cacheManager.getCache(CacheConfig.USER_PROJECTIONS)).thenReturn(projectionCache);
+        when(cacheManager.getCache(CacheConfig.USER_DEAD)).thenReturn(deadCache);
+        lenient().when(cacheManager.getCache(CacheConfig.USER_DETAILS)).thenReturn(detailsCache);
+    }
+
+    @Test
+    void testOnUserChanged_UpdatedEvictsOnlyThatUser() {
+        userCacheInvalidator.onUserChanged(UserChangedEvent.updated("user1", 3, true));
+
+        verify(projectionCache, times(1)).evict("user1");
+        verify(deadCache, times(1)).evict("user1");
+        verify(projectionCache, never()).clear();
+        verify(deadCache, never()).clear();
+        verify(detailsCache, never()).evict(any());
+    }
+
+    @Test
+    void testOnUserChanged_SavedEntityEvictsCredentials() {
+        User user = User.builder().id(1).userName("user1").hashedPassword("newHash").build();
+
+        userCacheInvalidator.onUserChanged(UserChangedEvent.updated(user));
+
+        verify(projectionCache, times(1)).evict("user1");
+        verify(detailsCache, times(1)).evict("user1");
+    }
+
+    @Test
+    void testOnUserChanged_AddedEvictsThatUser() {
+        User user = User.builder().id(1).userName("user1").hashedPassword("hash").build();
+
+        userCacheInvalidator.onUserChanged(UserChangedEvent.added(user));
+
+        verify(projectionCache, times(1)).evict("user1");
+        verify(deadCache, times(1)).evict("user1");
+        verify(detailsCache, never()).evict(any());
+    }
+
+    @Test
+    void testOnUserChanged_RemovedEvictsOnlyThatUser() {
+        userCacheInvalidator.onUserChanged(UserChangedEvent.removed(1, "user1"));
+
+        verify(projectionCache, times(1)).evict("user1");
+        verify(deadCache, times(1)).evict("user1");
+        verify(detailsCache, times(1)).evict("user1");
+        verify(projectionCache, never()).clear();
+        verify(detailsCache, never()).clear();
+    }
+
+    @Test
+    void testOnUserChanged_RemovedByNamesEvictsOnlyThoseUsers() {
+        userCacheInvalidator.onUserChanged(UserChangedEvent.removed(List.of("user1", "user2")));
+
+        verify(projectionCache, times(1)).evict("user1");
+        verify(projectionCache, times(1)).evict("user2");
+        verify(deadCache, times(1)).evict("user2");
+        verify(detailsCache, times(1)).evict("user1");
+        verify(detailsCache, times(1)).evict("user2");
+        verify(projectionCache, never()).clear();
+        verify(detailsCache, never()).clear();
+    }
+
+    @Test
+    void testOnUserChanged_BulkChangedClearsCaches() {
+        userCacheInvalidator.onUserChanged(UserChangedEvent.bulkChanged());
+
+        verify(projectionCache, times(1)).clear();
+        verify(deadCache, times(1)).clear();
+        verify(detailsCache, times(1)).clear();
+    }
+}
@@ -0,0 +1,111 @@
+package com.crud_project.crud.test.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.crud_project.crud.service.UserChangeVersion;
+
+class UserChangeVersionTests {
+
+    private final UserChangeVersion userChangeVersion = new UserChangeVersion();
+    private final UserChangeVersion otherInstance = new UserChangeVersion();
+
+    @Test
+    void testEtag_IsSharedOnceTheSameChangesArrived() {
+        userChangeVersion.synced(3, 0);
+        otherInstance.synced(3, 0);
+        assertNotEquals(userChangeVersion.etag(), otherInstance.etag());
+
+        userChangeVersion.delivered(4);
+        otherInstance.delivered(4);
+
+        assertEquals("\"4\"", userChangeVersion.etag());
+        assertEquals(userChangeVersion.etag(), otherInstance.etag());
+    }
+
+    @Test
+    void testEtag_OwnChangeIsSeenBeforeItArrives() {
+        userChangeVersion.synced(3, 0);
+        userChangeVersion.delivered(4);
+        String before = userChangeVersion.etag();
+        long version = userChangeVersion.getVersion();
+
+        long ownChange = userChangeVersion.committed();
+        assertNotEquals(before, userChangeVersion.etag());
+        assertTrue(userChangeVersion.getVersion() > version);
+
+        // sent after 5 but 5 doesn't carry it
+        userChangeVersion.delivered(5);
+        assertNotEquals("\"5\"", userChangeVersion.etag());
+        userChangeVersion.deliveredOwn(6, ownChange);
+        assertEquals("\"6\"", userChangeVersion.etag());
+    }
+
+    @Test
+    void testEtag_IsSharedOnceEveryOwnChangeArrived() {
+        userChangeVersion.synced(3, 0);
+        long first = userChangeVersion.committed();
+        long second = userChangeVersion.committed();
+        assertTrue(second > first);
+
+        userChangeVersion.deliveredOwn(4, first);
+        assertNotEquals("\"4\"", userChangeVersion.etag());
+        userChangeVersion.deliveredOwn(5, second);
+        assertEquals("\"5\"", userChangeVersion.etag());
+
+        // unless something else happened since
+        userChangeVersion.rolledBack();
+        assertNotEquals("\"5\"", userChangeVersion.etag());
+        userChangeVersion.delivered(6);
+        assertEquals("\"6\"", userChangeVersion.etag());
+    }
+
+    @Test
+    void testEtag_OwnChangesSentWhileNotListeningAreNotWaitedFor() {
+        long ownChange = userChangeVersion.committed();
+
+        userChangeVersion.synced(3, ownChange);
+        userChangeVersion.delivered(4);
+
+        assertEquals("\"4\"", userChangeVersion.etag());
+    }
+
+    @Test
+    void testEtag_ChangesWhenNumbersArriveOutOfOrder() {
+        userChangeVersion.synced(3, 0);
+        userChangeVersion.delivered(5);
+        String five = userChangeVersion.etag();
+
+        // took its number before 5 but committed after it
+        userChangeVersion.delivered(4);
+
+        assertNotEquals(five, userChangeVersion.etag());
+        assertNotEquals("\"4\"", userChangeVersion.etag());
+    }
+
+    @Test
+    void testEtag_ChangesOnRollback() {
+        String before = userChangeVersion.etag();
+
+        userChangeVersion.rolledBack();
+
+        assertNotEquals(before, userChangeVersion.etag());
+    }
+
+    @Test
+    void testEtag_IsStrongAndDependsOnParts() {
+        String etag = userChangeVersion.etag("user1");
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, userChangeVersion.etag("user1"));
+        assertNotEquals(etag, userChangeVersion.etag("user2"));
+        assertNotEquals(etag, userChangeVersion.etag());
+    }
+
+    @Test
+    void testEtag_DiffersBetweenInstancesBeforeAnyChangeArrives() {
+        assertNotEquals(userChangeVersion.etag(), otherInstance.etag());
+    }
+}
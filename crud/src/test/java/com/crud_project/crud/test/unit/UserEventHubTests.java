@@ -0,0 +1,101 @@
+package com.crud_project.crud.test.unit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.crud_project.crud.dvo.UserDelta;
+import com.crud_project.crud.event.UserChangedEvent;
+import com.crud_project.crud.service.UserEventHub;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+class UserEventHubTests {
+
+    private static final int BUFFER_CAPACITY = 2;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private SimpleMeterRegistry meterRegistry;
+    private ScheduledExecutorService sender;
+    private CountDownLatch senderBlocked;
+    private UserEventHub hub;
+
+    @BeforeEach
+    public void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        sender = Executors.newSingleThreadScheduledExecutor();
+        // nothing is sent until released, so subscribers fall behind
+        senderBlocked = new CountDownLatch(1);
+        sender.execute(() -> {
+            try {
+                senderBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        hub = new UserEventHub(jsonMapper, sender, BUFFER_CAPACITY, 2, 0, 0, meterRegistry);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        senderBlocked.countDown();
+        hub.close();
+    }
+
+    @Test
+    void testOnUserChanged_EvictsSubscribersThatFallBehind() {
+        assertNotNull(hub.subscribe());
+        assertNotNull(hub.subscribe());
+
+        for (int i = 0; i < BUFFER_CAPACITY; i++) {
+            hub.onUserChanged(UserChangedEvent.updated("user1", i, false));
+        }
+        assertEquals(2, hub.getClientCount());
+
+        hub.onUserChanged(UserChangedEvent.updated("user1", BUFFER_CAPACITY, true));
+
+        assertEquals(0, hub.getClientCount());
+        assertEquals(2, meterRegistry.get("user.events.evicted").counter().count());
+        assertEquals(0, meterRegistry.get("user.events.clients").gauge().value());
+    }
+
+    @Test
+    void testSubscribe_TurnsAwayOverMaxClients() {
+        assertNotNull(hub.subscribe());
+        assertNotNull(hub.subscribe());
+
+        assertNull(hub.subscribe());
+        assertEquals(2, hub.getClientCount());
+    }
+
+    @Test
+    void testUserDelta_LeavesOutUnknownFields() {
+        JsonNode updated = jsonMapper.valueToTree(UserDelta.of(UserChangedEvent.updated("user1", 3, true)));
+        JsonNode removed = jsonMapper.valueToTree(UserDelta.of(UserChangedEvent.removed(5, "user5")));
+        JsonNode reload = jsonMapper.valueToTree(UserDelta.of(UserChangedEvent.bulkChanged()));
+
+        assertEquals(UserDelta.UPDATED, updated.get("type").asString());
+        assertEquals("user1", updated.get("userName").asString());
+        assertEquals(3, updated.get("awCrudsPerformed").asInt());
+        assertEquals(true, updated.get("dead").asBoolean());
+        assertFalse(updated.has("id"));
+
+        assertEquals(UserDelta.REMOVED, removed.get("type").asString());
+        assertEquals(5, removed.get("id").asInt());
+        assertEquals("user5", removed.get("userName").asString());
+        assertEquals(3, removed.size());
+
+        assertEquals(UserDelta.RELOAD, reload.get("type").asString());
+        assertEquals(1, reload.size());
+    }
+}
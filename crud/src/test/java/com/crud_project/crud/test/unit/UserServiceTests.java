@@ -2,12 +2,13 @@ package com.crud_project.crud.test.unit;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -18,32 +19,44 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.crud_project.crud.dvo.KeysetSlice;
 import com.crud_project.crud.dvo.PageState;
 import com.crud_project.crud.dvo.WheelSpinResult;
 import com.crud_project.crud.entity.User;
+import com.crud_project.crud.event.UserChangedEvent;
 import com.crud_project.crud.repository.UserProjection;
 import com.crud_project.crud.repository.UserRepo;
+import com.crud_project.crud.repository.WheelSpinOutcome;
 import com.crud_project.crud.repository.impl.UserProjectionImpl;
+import com.crud_project.crud.security.PasswordHashingRejectedException;
 import com.crud_project.crud.service.ResourceHandler;
+import com.crud_project.crud.service.LeaderboardService;
 import com.crud_project.crud.service.UserService;
 
 @ExtendWith(MockitoExtension.class)
@@ -62,7 +75,13 @@ class UserServiceTests {
     private ResourceHandler resourceHandler;
 
     @Mock
-    private Random randomMock;
+    private RandomGenerator randomMock;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LeaderboardService leaderboardService;
 
     // Base set of USERS for all tests
     private static final int USER_COUNT = 4; // ensure "USER_COUNT" <= "default PageState size"
@@ -207,6 +226,9 @@ class UserServiceTests {
             assertNotNull(result);
             assertEquals(user.getUserName(), result.getUserName());
             verify(userRepo, times(1)).save(user);
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getType() == UserChangedEvent.Type.ADDED
+                    && event.getUserName().equals(user.getUserName())));
         }
     }
 
@@ -256,74 +278,158 @@ class UserServiceTests {
         void testDeleteUserById_Success() {
             int id = USERS.get(CURRENT_USER_IDX).getId();
 
-            doNothing().when(userRepo).deleteById(id);
-            when(userRepo.findById(id)).thenReturn(Optional.empty());
+            when(userRepo.deleteUserById(id)).thenReturn(USERS.get(CURRENT_USER_IDX).getUserName());
 
             boolean result = userService.deleteUserById(id);
 
             assertTrue(result);
-            verify(userRepo, times(1)).deleteById(id);
-            verify(userRepo, times(1)).findById(id);
+            verify(userRepo, times(1)).deleteUserById(id);
+            verify(userRepo, never()).findById(anyInt());
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getType() == UserChangedEvent.Type.REMOVED && event.getId() == id
+                    && USERS.get(CURRENT_USER_IDX).getUserName().equals(event.getUserName())));
         }
 
         @Test
-        void testDeleteUserById_UserStillExists() {
+        void testDeleteUserById_NothingDeleted() {
             User user = USERS.get(CURRENT_USER_IDX);
 
-            doNothing().when(userRepo).deleteById(user.getId());
-            when(userRepo.findById(user.getId())).thenReturn(Optional.of(user));
+            when(userRepo.deleteUserById(user.getId())).thenReturn(null);
 
             boolean result = userService.deleteUserById(user.getId());
 
             assertFalse(result);
-            verify(userRepo, times(1)).deleteById(user.getId());
-            verify(userRepo, times(1)).findById(user.getId());
+            verify(userRepo, times(1)).deleteUserById(user.getId());
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
         }
     }
 
     @Nested
-    public class GetUserProjectionsByPageStateTests {
+    public class GetUserProjectionSliceByPageStateTests {
 
         @Test
-        void testGetUserProjectionsByPageState_Success() {
+        void testGetUserProjectionSliceByPageState_Success() {
             PageState pageState = PageState.builder().build();
-            Page<UserProjection> page = new PageImpl<>(
+            Slice<UserProjection> slice = new SliceImpl<>(
                     USERS.stream()
                             .map(UserProjectionImpl::from)
                             .map(p -> (UserProjection) p)
                             .toList());
 
-            when(userRepo.findAllUserProjectionBy(PageRequest.of(pageState.getPage(), pageState.getSize())))
-                    .thenReturn(page);
+            when(userRepo.findUserProjectionSliceBy(PageRequest.of(pageState.getPage(), pageState.getSize())))
+                    .thenReturn(slice);
 
-            Page<UserProjection> result = userService
-                    .getUserProjectionsByPageState(pageState);
+            Slice<UserProjection> result = userService.getUserProjectionSliceByPageState(pageState);
 
             assertNotNull(result);
-            assertEquals(USERS.size(), result.getTotalElements());
-            verify(userRepo, times(1)).findAllUserProjectionBy(any());
+            assertEquals(USERS.size(), result.getNumberOfElements());
         }
 
         @Test
-        void testGetUserProjectionsByPageState_NullPageState() {
-            Page<UserProjection> result = userService.getUserProjectionsByPageState(null);
+        void testGetUserProjectionSliceByPageState_NullPageState() {
+            Slice<UserProjection> result = userService.getUserProjectionSliceByPageState(null);
 
             assertNull(result);
-            verify(userRepo, never()).findAllUserProjectionBy(any());
+            verify(userRepo, never()).findUserProjectionSliceBy(any());
+        }
+    }
+
+    @Nested
+    public class GetUserProjectionsByKeysetTests {
+
+        private List<UserProjection> projections;
+
+        @BeforeEach
+        public void beforeEach() {
+            projections = USERS.stream()
+                    .map(UserProjectionImpl::from)
+                    .map(p -> (UserProjection) p)
+                    .toList();
         }
 
         @Test
-        void testGetUserProjectionsByPageState_EmptyPage() {
-            PageState pageState = PageState.builder().build();
-            Page<UserProjection> emptyPage = Page.empty();
+        void testGetUserProjectionsByKeyset_AfterCursorHasNext() {
+            PageState pageState = PageState.builder().size(USER_COUNT - 1).cursor(0).build();
+
+            when(userRepo.findUserProjectionsAfterIdWithPrevious(0, USER_COUNT)).thenReturn(projections);
+
+            KeysetSlice<UserProjection> result = userService.getUserProjectionsByKeyset(pageState);
+
+            assertNotNull(result);
+            assertEquals(projections.subList(0, USER_COUNT - 1), result.getContent());
+            assertTrue(result.hasNext());
+            assertFalse(result.hasPrevious());
+            verify(userRepo, never()).findUserProjectionsBeforeIdWithNext(anyInt(), anyInt());
+        }
+
+        @Test
+        void testGetUserProjectionsByKeyset_AfterCursorHasPreviousOnlyIfARowLeads() {
+            // the first user is at the cursor, only there to tell of a previous page
+            int cursor = projections.get(0).getId();
+            PageState pageState = PageState.builder().size(USER_COUNT).cursor(cursor).build();
 
-            when(userRepo.findAllUserProjectionBy(PageRequest.of(pageState.getPage(), pageState.getSize())))
-                    .thenReturn(emptyPage);
+            when(userRepo.findUserProjectionsAfterIdWithPrevious(cursor, USER_COUNT + 1)).thenReturn(projections);
 
-            Page<UserProjection> result = userService.getUserProjectionsByPageState(pageState);
+            KeysetSlice<UserProjection> result = userService.getUserProjectionsByKeyset(pageState);
 
+            assertEquals(projections.subList(1, USER_COUNT), result.getContent());
+            assertTrue(result.hasPrevious());
+            assertFalse(result.hasNext());
+
+            // the users up to the cursor were deleted since
+            when(userRepo.findUserProjectionsAfterIdWithPrevious(cursor, USER_COUNT + 1))
+                    .thenReturn(projections.subList(1, USER_COUNT));
+
+            assertFalse(userService.getUserProjectionsByKeyset(pageState).hasPrevious());
+        }
+
+        @Test
+        void testGetUserProjectionsByKeyset_BeforeCursorIsReversed() {
+            // the last user is at the cursor, only there to tell of a next page
+            PageState pageState = PageState.builder()
+                    .size(USER_COUNT - 1)
+                    .cursor(USER_COUNT)
+                    .direction(PageState.Direction.BEFORE)
+                    .build();
+            List<UserProjection> descending = new ArrayList<>(projections);
+            Collections.reverse(descending);
+
+            when(userRepo.findUserProjectionsBeforeIdWithNext(USER_COUNT, USER_COUNT))
+                    .thenReturn(descending);
+
+            KeysetSlice<UserProjection> result = userService.getUserProjectionsByKeyset(pageState);
+
+            assertNotNull(result);
+            assertEquals(projections.subList(0, USER_COUNT - 1), result.getContent());
+            assertTrue(result.hasNext());
+            assertFalse(result.hasPrevious());
+        }
+
+        @Test
+        void testGetUserProjectionsByKeyset_EmptyBeforeCursorHasNoNext() {
+            PageState pageState = PageState.builder()
+                    .size(USER_COUNT)
+                    .cursor(0)
+                    .direction(PageState.Direction.BEFORE)
+                    .build();
+
+            when(userRepo.findUserProjectionsBeforeIdWithNext(0, USER_COUNT + 1))
+                    .thenReturn(List.of());
+
+            KeysetSlice<UserProjection> result = userService.getUserProjectionsByKeyset(pageState);
+
+            assertNotNull(result);
             assertTrue(result.isEmpty());
-            verify(userRepo, times(1)).findAllUserProjectionBy(any());
+            assertFalse(result.hasNext());
+            assertFalse(result.hasPrevious());
+        }
+
+        @Test
+        void testGetUserProjectionsByKeyset_OffsetPageState() {
+            KeysetSlice<UserProjection> result = userService.getUserProjectionsByKeyset(PageState.builder().build());
+
+            assertNull(result);
+            verify(userRepo, never()).findUserProjectionsAfterIdWithPrevious(anyInt(), anyInt());
         }
     }
 
@@ -392,37 +498,6 @@ class UserServiceTests {
         }
     }
 
-    @Nested
-    public class GetUserNamesByPageStateTests {
-
-        @Test
-        void testGetUserNamesByPageState_Success() {
-            PageState pageState = PageState.builder().build();
-            List<String> usernames = USERS.stream().map(User::getUserName).toList();
-            Page<String> page = new PageImpl<>(usernames);
-
-            when(userRepo.findAllUserNames(
-                    PageRequest.of(pageState.getPage(), pageState.getSize()))).thenReturn(page);
-
-            Page<String> result = userService.getUserNamesByPageState(pageState);
-
-            assertNotNull(result);
-            assertEquals(page.getTotalElements(), result.getTotalElements());
-            assertEquals(usernames, result.getContent());
-            verify(userRepo, times(1))
-                    .findAllUserNames(PageRequest.of(pageState.getPage(), pageState.getSize()));
-        }
-
-        @Test
-        void testGetUserNamesByPageState_NullPageState() {
-            Page<String> result = userService.getUserNamesByPageState(null);
-
-            assertNotNull(result);
-            assertTrue(result.isEmpty());
-            verify(userRepo, never()).findAllUserNames(any());
-        }
-    }
-
     @Nested
     public class GetDeadByNameTests {
 
@@ -472,22 +547,28 @@ class UserServiceTests {
 
         @Test
         void testDeleteAllUsers_Success() {
-            doNothing().when(userRepo).deleteAll();
+            when(userRepo.deleteChunk(UserService.DELETE_CHUNK_SIZE))
+                    .thenReturn(UserService.DELETE_CHUNK_SIZE, 3);
 
-            boolean result = userService.deleteAllUsers();
+            long result = userService.deleteAllUsers();
 
-            assertTrue(result);
-            verify(userRepo, times(1)).deleteAll();
+            assertEquals(UserService.DELETE_CHUNK_SIZE + 3L, result);
+            verify(userRepo, times(2)).deleteChunk(UserService.DELETE_CHUNK_SIZE);
+            verify(userRepo, never()).deleteAll();
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getType() == UserChangedEvent.Type.BULK_CHANGED));
         }
 
         @Test
         void testDeleteAllUsers_Exception() {
-            doThrow(new RuntimeException("Database error")).when(userRepo).deleteAll();
+            when(userRepo.deleteChunk(UserService.DELETE_CHUNK_SIZE))
+                    .thenReturn(UserService.DELETE_CHUNK_SIZE)
+                    .thenThrow(new RuntimeException("Database error"));
 
-            boolean result = userService.deleteAllUsers();
+            long result = userService.deleteAllUsers();
 
-            assertFalse(result);
-            verify(userRepo, times(1)).deleteAll();
+            assertEquals(UserService.DELETE_CHUNK_SIZE, result);
+            verify(userRepo, times(2)).deleteChunk(UserService.DELETE_CHUNK_SIZE);
         }
     }
 
@@ -503,7 +584,7 @@ class UserServiceTests {
         public void testRegisterUser_Success() {
             User savedUser = User.builder().id(id).userName(username).hashedPassword(hashedPassword).build();
 
-            when(userRepo.findByUserName(username)).thenReturn(Optional.empty());
+            when(userRepo.existsByUserName(username)).thenReturn(false);
             when(passwordEncoder.encode(password)).thenReturn(hashedPassword);
             when(userRepo.save(any(User.class))).thenReturn(savedUser);
 
@@ -512,127 +593,193 @@ class UserServiceTests {
             assertNotNull(result);
             assertEquals(savedUser, result);
 
-            verify(userRepo, times(1)).findByUserName(username);
+            verify(userRepo, times(1)).existsByUserName(username);
+            verify(userRepo, never()).findByUserName(anyString());
             verify(passwordEncoder, times(1)).encode(password);
             verify(userRepo, times(1)).save(any(User.class));
         }
 
         @Test
         public void testRegisterUser_UserAlreadyExists() {
-            User existingUser = User.builder().id(id).userName(username).hashedPassword(hashedPassword).build();
-
-            when(userRepo.findByUserName(username)).thenReturn(Optional.of(existingUser));
+            when(userRepo.existsByUserName(username)).thenReturn(true);
 
             User result = userService.registerUser(username, password);
 
             assertNull(result);
 
-            verify(userRepo, times(1)).findByUserName(username);
+            verify(userRepo, times(1)).existsByUserName(username);
             verify(passwordEncoder, never()).encode(anyString());
             verify(userRepo, never()).save(any(User.class));
         }
+
+        @Test
+        public void testRegisterUser_HashingRejected() {
+            when(userRepo.existsByUserName(username)).thenReturn(false);
+            when(passwordEncoder.encode(password))
+                    .thenThrow(new PasswordHashingRejectedException("Password hashing is at capacity", null));
+
+            User result = userService.registerUser(username, password);
+
+            assertNull(result);
+            verify(userRepo, never()).save(any(User.class));
+        }
     }
 
     @Nested
-    public class SpinWheelTests {
+    public class SpinWheelAtomicTests {
 
         private User currentUser;
         private PageState pageState;
-        private Page<String> page;
-        private List<String> usernames;
 
         @BeforeEach
-        public void setupSpinWheel() throws Exception {
+        public void setupSpinWheelAtomic() throws Exception {
             currentUser = USERS.get(CURRENT_USER_IDX);
-
             pageState = PageState.builder().build();
-            usernames = USERS.stream().map(User::getUserName).toList();
-            page = new PageImpl<>(usernames);
 
-            lenient().when(
-                    userRepo.findAllUserNames(any(Pageable.class)))
-                    .thenReturn(page);
+            lenient().when(randomMock.nextDouble())
+                    .thenReturn(0.5);
+        }
+
+        private WheelSpinOutcome outcome(String winnerName, String participants, long updatedRows) {
+            WheelSpinOutcome outcome = mock(WheelSpinOutcome.class);
+            lenient().when(outcome.getWinnerName()).thenReturn(winnerName);
+            lenient().when(outcome.getParticipants()).thenReturn(participants);
+            lenient().when(outcome.getUpdatedRows()).thenReturn(updatedRows);
+            return outcome;
+        }
+
+        @DisplayName("Atomic spin returns the winner and participants in wheel order")
+        @Test
+        public void testSpinWheelAtomic_Success() {
+            List<String> usernames = USERS.stream().map(User::getUserName).toList();
+            String winnerName = USERS.get(CURRENT_USER_IDX + 1).getUserName();
+            WheelSpinOutcome outcome = outcome(winnerName, String.join(",", usernames), 2);
+
+            when(userRepo.spinWheel(currentUser.getUserName(), 0L, pageState.getSize(), 0.5, false))
+                    .thenReturn(outcome);
+
+            WheelSpinResult result = userService.spinWheelAtomic(currentUser.getUserName(), pageState, false);
 
-            lenient().when(randomMock.nextInt(anyInt()))
-                    .thenReturn(0);
+            assertNotNull(result);
+            assertEquals(winnerName, result.getWinnerName());
+            assertEquals(usernames, result.getParticipants());
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getUserName().equals(currentUser.getUserName()) && !event.isDead()));
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getUserName().equals(winnerName) && event.isDead()));
+            verify(userRepo, times(1)).spinWheel(currentUser.getUserName(), 0L, pageState.getSize(), 0.5, false);
+            verify(userRepo, never()).findByUserName(anyString());
         }
 
-        @DisplayName("User spins wheel and lives")
+        @DisplayName("Atomic spin passes the page offset to the database")
         @Test
-        public void testSpinWheel_Success() {
-            int winnerIdx = CURRENT_USER_IDX + 1;
-            User winnerUser = USERS.get(winnerIdx);
-            int prevAwCrudsPerformed = currentUser.getAwCrudsPerformed();
+        public void testSpinWheelAtomic_PageOffset() {
+            PageState secondPage = PageState.builder().page(2).size(5).build();
+            WheelSpinOutcome outcome = outcome(currentUser.getUserName(), currentUser.getUserName(), 1);
 
-            when(randomMock.nextInt(anyInt()))
-                    .thenReturn(winnerIdx);
-            when(userRepo.findByUserName(currentUser.getUserName())).thenReturn(Optional.of(currentUser));
-            when(userRepo.findByUserName(winnerUser.getUserName())).thenReturn(Optional.of(winnerUser));
+            when(userRepo.spinWheel(currentUser.getUserName(), 10L, 5, 0.5, false))
+                    .thenReturn(outcome);
 
-            WheelSpinResult result = userService.spinWheel(
-                    currentUser.getUserName(), pageState);
+            WheelSpinResult result = userService.spinWheelAtomic(currentUser.getUserName(), secondPage, false);
 
             assertNotNull(result);
-            assertTrue(result.getParticipants().containsAll(usernames));
-            assertTrue(result.getParticipants().contains(currentUser.getUserName()));
-            // expected user2 but was user1
-            assertEquals(winnerUser.getUserName(), result.getWinnerName());
-            assertEquals(prevAwCrudsPerformed + 1, currentUser.getAwCrudsPerformed());
+            assertEquals(Collections.singletonList(currentUser.getUserName()), result.getParticipants());
+        }
 
-            verify(userRepo, times(1)).findByUserName(currentUser.getUserName());
-            verify(userRepo, times(1)).findAllUserNames(any(Pageable.class));
-            verify(userRepo, times(1)).findByUserName(winnerUser.getUserName());
+        @DisplayName("Atomic spin seeks the keyset page after the cursor")
+        @Test
+        public void testSpinWheelAtomic_KeysetPage() {
+            PageState keysetPage = PageState.builder().size(5).cursor(20).build();
+            WheelSpinOutcome outcome = outcome(currentUser.getUserName(), currentUser.getUserName(), 1);
+
+            when(userRepo.spinWheelAfterId(currentUser.getUserName(), 20, 5, 0.5, true))
+                    .thenReturn(outcome);
+
+            WheelSpinResult result = userService.spinWheelAtomic(currentUser.getUserName(), keysetPage, true);
+
+            assertNotNull(result);
+            verify(userRepo, never()).spinWheel(anyString(), anyLong(), anyInt(), anyDouble(), anyBoolean());
         }
 
-        @DisplayName("Current user must not be dead to spin wheel")
+        @DisplayName("Dead or missing users get no result from the atomic spin")
         @Test
-        public void testSpinWheel_UserIsDead() {
-            User deadUser = USERS.get(CURRENT_USER_IDX);
-            deadUser.setDead(true);
-            when(userRepo.findByUserName(deadUser.getUserName())).thenReturn(Optional.of(deadUser));
+        public void testSpinWheelAtomic_Rejected() {
+            WheelSpinOutcome outcome = outcome(null, null, 0);
 
-            WheelSpinResult result = userService.spinWheel(deadUser.getUserName(), pageState);
+            when(userRepo.spinWheel(currentUser.getUserName(), 0L, pageState.getSize(), 0.5, false))
+                    .thenReturn(outcome);
 
-            assertNull(result);
+            WheelSpinResult result = userService.spinWheelAtomic(currentUser.getUserName(), pageState, false);
 
-            verify(userRepo, times(1)).findByUserName(deadUser.getUserName());
-            verify(userRepo, never()).findAllUserNames(any(Pageable.class));
+            assertNull(result);
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
         }
 
-        @DisplayName("Current user must exist to spin wheel")
+        @DisplayName("A spin whose spinner wasn't updated is rejected even if its winner was")
         @Test
-        public void testSpinWheel_UserNotFound() {
-            String missingUserName = "nonexistent";
-            when(userRepo.findByUserName(missingUserName)).thenReturn(Optional.empty());
+        public void testSpinWheelAtomic_SpinnerNotUpdated() {
+            String winnerName = USERS.get(CURRENT_USER_IDX + 1).getUserName();
+            WheelSpinOutcome outcome = outcome(winnerName, currentUser.getUserName() + "," + winnerName, 1);
+            when(outcome.getSpinnerCruds()).thenReturn(null);
+
+            when(userRepo.spinWheel(currentUser.getUserName(), 0L, pageState.getSize(), 0.5, false))
+                    .thenReturn(outcome);
 
-            WheelSpinResult result = userService.spinWheel(missingUserName, pageState);
+            WheelSpinResult result = userService.spinWheelAtomic(currentUser.getUserName(), pageState, false);
 
             assertNull(result);
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
+        }
 
-            verify(userRepo, times(1)).findByUserName(missingUserName);
-            verify(userRepo, never()).findAllUserNames(any(Pageable.class));
+        @DisplayName("Atomic spin requires a page state")
+        @Test
+        public void testSpinWheelAtomic_NullPageState() {
+            WheelSpinResult result = userService.spinWheelAtomic(currentUser.getUserName(), null, false);
+
+            assertNull(result);
+            verify(userRepo, never()).spinWheel(anyString(), anyLong(), anyInt(), anyDouble(), anyBoolean());
         }
 
-        @DisplayName("Page current user is trying to spin is empty")
+        @DisplayName("Global spin draws its participants from the leaderboard's living users")
         @Test
-        public void testSpinWheel_NoUsernamesFound() {
-            when(randomMock.nextInt(anyInt()))
-                    .thenReturn(0);
-            when(userRepo.findAllUserNames(any(Pageable.class)))
-                    .thenReturn(Page.empty());
+        public void testSpinGlobalWheel_Success() {
+            String winnerName = USERS.get(CURRENT_USER_IDX + 1).getUserName();
+            WheelSpinOutcome outcome = outcome(winnerName, currentUser.getUserName() + "," + winnerName, 2);
 
-            // Mock repository methods
-            when(userRepo.findByUserName(currentUser.getUserName())).thenReturn(Optional.of(currentUser));
+            when(leaderboardService.sampleAlive(5 + UserService.GLOBAL_WHEEL_SPARE_PARTICIPANTS,
+                    currentUser.getUserName(), randomMock)).thenReturn(List.of(winnerName));
+            when(userRepo.spinWheelGlobal(eq(currentUser.getUserName()), aryEq(new String[] { winnerName }), eq(5),
+                    eq(0.5), eq(false)))
+                    .thenReturn(outcome);
 
-            WheelSpinResult result = userService.spinWheel(currentUser.getUserName(), pageState);
+            WheelSpinResult result = userService.spinGlobalWheel(currentUser.getUserName(), 5, false);
+
+            assertNotNull(result);
+            assertEquals(winnerName, result.getWinnerName());
+            assertEquals(List.of(currentUser.getUserName(), winnerName), result.getParticipants());
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getUserName().equals(winnerName) && event.isDead()));
+        }
+
+        @DisplayName("Global spin requires a valid size")
+        @Test
+        public void testSpinGlobalWheel_InvalidSize() {
+            assertNull(userService.spinGlobalWheel(currentUser.getUserName(), 0, false));
+            assertNull(userService.spinGlobalWheel(currentUser.getUserName(), PageState.MAX_SIZE + 1, false));
 
-            assertEquals(currentUser.getUserName(), result.getWinnerName());
-            assertEquals(
-                    Collections.singletonList(currentUser.getUserName()),
-                    result.getParticipants());
-            // currentUser is winner because no other users to add to spin, haha
-            verify(userRepo, times(1)).findByUserName(currentUser.getUserName());
-            verify(userRepo, times(1)).findAllUserNames(any(Pageable.class));
+            verify(userRepo, never()).spinWheelGlobal(anyString(), any(String[].class), anyInt(), anyDouble(), anyBoolean());
+        }
+
+        @DisplayName("Global spin without another living user is rejected, not a certain self kill")
+        @Test
+        public void testSpinGlobalWheel_NoOtherLivingUser() {
+            when(leaderboardService.sampleAlive(anyInt(), eq(currentUser.getUserName()), eq(randomMock)))
+                    .thenReturn(List.of());
+
+            assertNull(userService.spinGlobalWheel(currentUser.getUserName(), 5, false));
+
+            verify(userRepo, never()).spinWheelGlobal(anyString(), any(String[].class), anyInt(), anyDouble(), anyBoolean());
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
         }
     }
 
@@ -650,6 +797,16 @@ class UserServiceTests {
             hashedPassword = "hashedPassword";
         }
 
+        private void stubPersistAssigningIds() {
+            doAnswer(invocation -> {
+                List<User> newUsers = invocation.getArgument(0);
+                for (User newUser : newUsers) {
+                    newUser.setId(USERS.get(usernames.indexOf(newUser.getUserName())).getId());
+                }
+                return null;
+            }).when(userRepo).persistInBatches(anyList());
+        }
+
         @Test
         void testCreateTestUsers_Success() {
             when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
@@ -657,19 +814,74 @@ class UserServiceTests {
                     .thenReturn(Collections.singletonList(password));
 
             when(passwordEncoder.encode(password)).thenReturn(hashedPassword);
-
-            when(userRepo.save(any(User.class))).thenAnswer(invocation -> {
-                User newUser = invocation.getArgument(0);
-                return USERS.get(usernames.indexOf(newUser.getUserName()));
-            });
+            when(userRepo.findExistingUserNames(any(String[].class))).thenReturn(Set.of());
+            stubPersistAssigningIds();
 
             Set<Integer> result = userService.createTestUsers();
 
-            assertArrayEquals(USERS.stream().map(User::getId).toArray(), result.toArray());
+            assertEquals(USERS.stream().map(User::getId).collect(Collectors.toSet()), result);
             verify(resourceHandler, times(1)).getTestUserDbUsernames();
             verify(resourceHandler, times(1)).getTestUserDbPasswords();
             verify(passwordEncoder, times(1)).encode(password);
-            verify(userRepo, times(USERS.size())).save(any(User.class));
+            verify(userRepo, times(1)).findExistingUserNames(any(String[].class));
+            verify(userRepo, times(1)).persistInBatches(anyList());
+            verify(userRepo, never()).existsByUserName(anyString());
+            verify(userRepo, never()).save(any(User.class));
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getType() == UserChangedEvent.Type.BULK_CHANGED));
+        }
+
+        @Test
+        void testCreateTestUsers_SkipsExistingUsers() {
+            when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+            when(resourceHandler.getTestUserDbPasswords())
+                    .thenReturn(Collections.singletonList(password));
+            when(passwordEncoder.encode(password)).thenReturn(hashedPassword);
+            when(userRepo.findExistingUserNames(any(String[].class))).thenReturn(Set.of(usernames.get(0)));
+            stubPersistAssigningIds();
+
+            Set<Integer> result = userService.createTestUsers();
+
+            assertEquals(USERS.size() - 1, result.size());
+            assertFalse(result.contains(USERS.get(0).getId()));
+            verify(userRepo).persistInBatches(argThat(newUsers -> newUsers.size() == USERS.size() - 1));
+        }
+
+        @Test
+        void testCreateTestUsers_AllExist() {
+            when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+            when(resourceHandler.getTestUserDbPasswords())
+                    .thenReturn(Collections.singletonList(password));
+            when(passwordEncoder.encode(password)).thenReturn(hashedPassword);
+            when(userRepo.findExistingUserNames(any(String[].class))).thenReturn(new HashSet<>(usernames));
+
+            Set<Integer> result = userService.createTestUsers();
+
+            assertTrue(result.isEmpty());
+            verify(userRepo, never()).persistInBatches(anyList());
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
+        }
+
+        @Test
+        void testGetTestUserNames_CountBeyondBundledNames() {
+            when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+
+            int count = usernames.size() * 2 + 1;
+            List<String> result = userService.getTestUserNames(count);
+
+            assertEquals(count, result.size());
+            assertEquals(count, new HashSet<>(result).size());
+            assertEquals(usernames, result.subList(0, usernames.size()));
+            assertEquals(usernames.get(0) + 1, result.get(usernames.size()));
+            assertEquals(usernames.get(0) + 2, result.get(count - 1));
+            assertEquals(result, userService.getTestUserNames(count));
+        }
+
+        @Test
+        void testGetTestUserNames_DefaultsToBundledNames() {
+            when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+
+            assertEquals(usernames, userService.getTestUserNames(0));
         }
 
         @Test
@@ -681,7 +893,22 @@ class UserServiceTests {
             assertNull(result);
             verify(resourceHandler, times(1)).getTestUserDbUsernames();
             verify(passwordEncoder, never()).encode(password);
-            verify(userRepo, never()).save(any(User.class));
+            verify(userRepo, never()).persistInBatches(anyList());
+        }
+
+        @Test
+        void testCreateTestUsers_HashingRejected() {
+            when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+            when(resourceHandler.getTestUserDbPasswords())
+                    .thenReturn(Collections.singletonList(password));
+            when(passwordEncoder.encode(password))
+                    .thenThrow(new PasswordHashingRejectedException("Password hashing is at capacity", null));
+
+            Set<Integer> result = userService.createTestUsers();
+
+            assertNull(result);
+            verify(userRepo, never()).persistInBatches(anyList());
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
         }
     }
 
@@ -696,63 +923,56 @@ class UserServiceTests {
         }
 
         @Test
-        void testDeleteTestUsers_DeleteAllTestUsers() throws Exception {
+        void testDeleteTestUsers_DeleteAllTestUsers() {
             when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+            when(userRepo.deleteByUserNames(any(String[].class))).thenReturn(usernames.size());
 
-            for (int i = 0; i < usernames.size(); i++) {
-                String username = usernames.get(i);
-                User testUser = USERS.get(i);
-                when(userRepo.findByUserName(username)).thenReturn(Optional.of(testUser));
-                // when(userRepo.deleteById(testUser.getId())).thenReturn(true);
-            }
-
-            boolean result = userService.deleteTestUsers();
+            long result = userService.deleteTestUsers();
 
-            assertTrue(result);
+            assertEquals(usernames.size(), result);
             verify(resourceHandler, times(1)).getTestUserDbUsernames();
-            for (int i = 0; i < usernames.size(); i++) {
-                verify(userRepo, times(1)).findByUserName(usernames.get(i));
-                verify(userRepo, times(1)).deleteById(USERS.get(i).getId());
-            }
+            verify(userRepo, times(1)).deleteByUserNames(usernames.toArray(String[]::new));
+            verify(userRepo, never()).findByUserName(anyString());
+            verify(userRepo, never()).deleteById(anyInt());
+            verify(eventPublisher, times(1)).publishEvent(argThat((UserChangedEvent event) -> event
+                    .getType() == UserChangedEvent.Type.REMOVED && usernames.equals(event.getUserNames())));
         }
 
         @Test
         void testDeleteTestUsers_UsernamesFileNotFound() {
             when(resourceHandler.getTestUserDbUsernames()).thenReturn(null);
 
-            boolean result = userService.deleteTestUsers();
+            long result = userService.deleteTestUsers();
 
-            assertFalse(result);
+            assertEquals(0, result);
             verify(resourceHandler, times(1)).getTestUserDbUsernames();
-            verify(userRepo, never()).findByUserName(anyString());
-            verify(userRepo, never()).deleteById(anyInt());
+            verify(userRepo, never()).deleteByUserNames(any(String[].class));
         }
 
         @Test
-        void testDeleteTestUsers_OneOfXUsersNotFound() {
+        void testDeleteTestUsers_ManyUsersDeletedInChunks() {
             when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+            when(userRepo.deleteByUserNames(any(String[].class)))
+                    .thenAnswer(invocation -> ((String[]) invocation.getArgument(0)).length);
 
-            // Mock users using existing USERS list
-            for (int i = 0; i < usernames.size(); i++) {
-                String username = usernames.get(i);
-                User testUser = USERS.get(i); // Use existing user from USERS list
-                when(userRepo.findByUserName(username)).thenReturn(Optional.of(testUser));
-                // when(userRepo.deleteById(testUser.getId())).thenReturn(true);
-            }
-            // Override specific user to return null (not found)
-            when(userRepo.findByUserName(usernames.get(0))).thenReturn(Optional.empty());
+            int count = UserService.DELETE_CHUNK_SIZE + 1;
+            long result = userService.deleteTestUsers(count);
 
-            boolean result = userService.deleteTestUsers();
+            assertEquals(count, result);
+            verify(userRepo, times(1)).deleteByUserNames(
+                    argThat((String[] names) -> names.length == UserService.DELETE_CHUNK_SIZE));
+            verify(userRepo, times(1)).deleteByUserNames(argThat((String[] names) -> names.length == 1));
+        }
 
-            assertTrue(result);
-            verify(resourceHandler, times(1)).getTestUserDbUsernames();
-            for (int i = 0; i < usernames.size(); i++) {
-                verify(userRepo, times(1)).findByUserName(usernames.get(i));
-            }
-            // Only verify deleteUserById for users that were found (not the first one)
-            for (int i = 1; i < usernames.size(); i++) {
-                verify(userRepo, times(1)).deleteById(USERS.get(i).getId());
-            }
+        @Test
+        void testDeleteTestUsers_NoneFound() {
+            when(resourceHandler.getTestUserDbUsernames()).thenReturn(usernames);
+            when(userRepo.deleteByUserNames(any(String[].class))).thenReturn(0);
+
+            long result = userService.deleteTestUsers();
+
+            assertEquals(0, result);
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
         }
     }
 }
\ No newline at end of file